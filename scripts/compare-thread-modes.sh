@@ -0,0 +1,84 @@
+#!/usr/bin/env bash
+#
+# Compara a vazão do conversor com threads de plataforma e com threads virtuais.
+#
+# Uso: scripts/compare-thread-modes.sh [requisicoes] [concorrencia] [imagens-por-requisicao]
+#
+# Gera imagens sintéticas, sobe a aplicação em cada modo e dispara as requisições
+# em paralelo contra /api/convert, imprimindo requisições por segundo de cada modo.
+
+set -euo pipefail
+
+REQUESTS=${1:-200}
+CONCURRENCY=${2:-32}
+IMAGES=${3:-10}
+PORT=${PORT:-8090}
+
+ROOT_DIR=$(cd "$(dirname "$0")/.." && pwd)
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+cd "$ROOT_DIR"
+bash ./mvnw -B -q -DskipTests package
+JAR=$(ls target/*.jar | grep -v plain | head -1)
+
+# Imagens sintéticas (metade JPEG, metade PNG)
+cat > "$WORK_DIR/Gen.java" <<'JAVA'
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+public class Gen {
+    public static void main(String[] args) throws Exception {
+        int count = Integer.parseInt(args[1]);
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.setColor(new Color((i * 37) % 255, 120, 200));
+            g.fillRect(0, 0, 1600, 1200);
+            g.setColor(Color.WHITE);
+            g.drawString("Imagem " + i, 100, 100);
+            String format = i % 2 == 0 ? "jpg" : "png";
+            ImageIO.write(image, format, new File(args[0], "img" + i + "." + format));
+        }
+    }
+}
+JAVA
+mkdir -p "$WORK_DIR/images"
+java "$WORK_DIR/Gen.java" "$WORK_DIR/images" "$IMAGES"
+
+CURL_ARGS=(-s -o /dev/null -w "%{http_code}\n" -F conversionType=SINGLE_PDF)
+for f in "$WORK_DIR"/images/*; do
+    CURL_ARGS+=(-F "files=@$f")
+done
+
+run_mode() {
+    local virtual=$1
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+        > "$WORK_DIR/app-$virtual.log" 2>&1 &
+    local pid=$!
+
+    until curl -s -o /dev/null "http://localhost:$PORT/"; do sleep 1; done
+
+    # Aquecimento
+    curl "${CURL_ARGS[@]}" "http://localhost:$PORT/api/convert" > /dev/null
+
+    local start end ok
+    start=$(date +%s.%N)
+    ok=$(seq "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+        curl "${CURL_ARGS[@]}" "http://localhost:$PORT/api/convert" | grep -c '^200$' || true)
+    end=$(date +%s.%N)
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    local mode=$([ "$virtual" = true ] && echo "virtual" || echo "plataforma")
+    awk -v m="$mode" -v ok="$ok" -v n="$REQUESTS" -v s="$start" -v e="$end" \
+        'BEGIN { printf "%-10s %d/%d OK em %.2fs -> %.2f req/s\n", m, ok, n, e - s, n / (e - s) }'
+}
+
+echo "Requisições: $REQUESTS, concorrência: $CONCURRENCY, imagens por requisição: $IMAGES"
+run_mode false
+run_mode true
@@ -0,0 +1,34 @@
+package vbotelho.dev.myConvertPdf.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import vbotelho.dev.myConvertPdf.MyConvertPdfApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sobe a aplicação para os benchmarks
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Inicia a aplicação com o cache de páginas desligado (cada operação converte de fato)
+     * e logs reduzidos, para não interferirem nas medições
+     */
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        // Argumentos de linha de comando têm precedência sobre o application.properties
+        List<String> args = new ArrayList<>(List.of("--app.cache.enabled=false", "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(MyConvertPdfApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(String[]::new));
+    }
+}
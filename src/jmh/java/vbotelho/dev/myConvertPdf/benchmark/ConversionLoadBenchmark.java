@@ -0,0 +1,117 @@
+package vbotelho.dev.myConvertPdf.benchmark;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cenário de carga ponta a ponta: requisições concorrentes ao ConversionController servido
+ * pelo Tomcat embutido, passando por multipart, validação, admissão e conversão.
+ * <p>
+ * Usa o endpoint em streaming, que não deduplica requisições idênticas: cada operação é
+ * uma conversão completa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ConversionLoadBenchmark {
+
+    @Param({"SINGLE_PDF", "MULTIPLE_PDF_ZIP"})
+    public String conversionType;
+
+    @Param({"MIXED"})
+    public ImageCorpus.Kind corpus;
+
+    @Param({"10"})
+    public int images;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, "server.port=0");
+        String port = context.getEnvironment().getProperty("local.server.port");
+
+        String boundary = "benchmark-" + UUID.randomUUID();
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/convert/stream"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        multipartBody(boundary, ImageCorpus.generate(corpus, images))))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    /**
+     * Envia o lote e consome a resposta inteira
+     *
+     * @return Bytes recebidos
+     */
+    @Benchmark
+    public long convertStream() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            long received = body.transferTo(NullOutputStream.INSTANCE);
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Resposta inesperada: HTTP " + response.statusCode());
+            }
+            return received;
+        }
+    }
+
+    private byte[] multipartBody(String boundary, List<MultipartFile> files) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"conversionType\"\r\n\r\n"
+                + conversionType + "\r\n").getBytes(StandardCharsets.UTF_8));
+
+        for (MultipartFile file : files) {
+            body.write(("--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"files\"; filename=\"" + file.getOriginalFilename() + "\"\r\n"
+                    + "Content-Type: " + file.getContentType() + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.write(file.getBytes());
+            body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package vbotelho.dev.myConvertPdf.benchmark;
+
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.service.upload.InMemoryImageFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Imagens sintéticas usadas pelos benchmarks.
+ * <p>
+ * As imagens têm gradiente, formas e ruído, para que a compressão se comporte como em fotos
+ * e digitalizações reais. A geração é determinística (semente fixa).
+ */
+public final class ImageCorpus {
+
+    /**
+     * Tipo de lote gerado
+     */
+    public enum Kind {
+        /** PNGs pequenos (320x240) */
+        SMALL_PNG,
+        /** JPEGs grandes (4000x3000, 12 MP) */
+        LARGE_JPEG,
+        /** TIFFs sem compressão (1600x1200) */
+        TIFF,
+        /** Alterna entre os três formatos */
+        MIXED
+    }
+
+    private record Sample(String extension, String contentType, byte[] content) {
+    }
+
+    private ImageCorpus() {
+    }
+
+    /**
+     * Gera um lote com a quantidade de imagens informada
+     */
+    public static List<MultipartFile> generate(Kind kind, int count) {
+        List<Sample> samples = switch (kind) {
+            case SMALL_PNG -> List.of(smallPng());
+            case LARGE_JPEG -> List.of(largeJpeg());
+            case TIFF -> List.of(tiff());
+            case MIXED -> List.of(smallPng(), largeJpeg(), tiff());
+        };
+
+        List<MultipartFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Sample sample = samples.get(i % samples.size());
+            files.add(new InMemoryImageFile("files", String.format("img-%03d.%s", i, sample.extension()),
+                    sample.contentType(), sample.content()));
+        }
+        return files;
+    }
+
+    private static Sample smallPng() {
+        return new Sample("png", "image/png", encode(render(320, 240, 1), "png"));
+    }
+
+    private static Sample largeJpeg() {
+        return new Sample("jpg", "image/jpeg", encode(render(4000, 3000, 2), "jpg"));
+    }
+
+    private static Sample tiff() {
+        return new Sample("tiff", "image/tiff", encode(render(1600, 1200, 3), "tiff"));
+    }
+
+    private static BufferedImage render(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 160), width, height, new Color(230, 200, 120)));
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < 40; i++) {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 160));
+            g.fillOval(random.nextInt(width), random.nextInt(height), width / 6, height / 6);
+        }
+        g.dispose();
+
+        // Ruído leve, como o de sensores e digitalizações
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(17) - 8;
+                int rgb = image.getRGB(x, y);
+                int r = clamp(((rgb >> 16) & 0xFF) + noise);
+                int gr = clamp(((rgb >> 8) & 0xFF) + noise);
+                int b = clamp((rgb & 0xFF) + noise);
+                image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static byte[] encode(BufferedImage image, String format) {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            if (!ImageIO.write(image, format, output)) {
+                throw new IllegalStateException("Formato sem codificador: " + format);
+            }
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package vbotelho.dev.myConvertPdf.benchmark;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
+import vbotelho.dev.myConvertPdf.service.PdfConversionService;
+import vbotelho.dev.myConvertPdf.service.ValidationService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do PdfConversionService por tipo de lote e quantidade de imagens.
+ * <p>
+ * A saída é descartada (sem disco) e o tamanho gerado é impresso ao final de cada combinação.
+ * Com {@code images=1} a medição corresponde ao custo de adicionar uma imagem ao documento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PdfConversionBenchmark {
+
+    @Param({"SMALL_PNG", "LARGE_JPEG", "TIFF", "MIXED"})
+    public ImageCorpus.Kind corpus;
+
+    @Param({"1", "10", "100"})
+    public int images;
+
+    private ConfigurableApplicationContext context;
+    private PdfConversionService pdfConversionService;
+    private List<MultipartFile> files;
+    private volatile long outputBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        pdfConversionService = context.getBean(PdfConversionService.class);
+
+        // Mesmo caminho do controller: arquivos validados levam o cabeçalho já lido
+        files = context.getBean(ValidationService.class).validateFiles(ImageCorpus.generate(corpus, images));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nSaída (%s, %d imagens): %d bytes%n", corpus, images, outputBytes);
+        context.close();
+    }
+
+    @Benchmark
+    public ConversionResult convertToPdf() {
+        ConversionResult result = pdfConversionService.convertToPdf(files, ConversionOptions.defaults(),
+                NullOutputStream.INSTANCE);
+        outputBytes = result.bytesOut();
+        return result;
+    }
+
+    @Benchmark
+    public ConversionResult convertToMultiplePdfsZip() {
+        ConversionResult result = pdfConversionService.convertToMultiplePdfsZip(files, ConversionOptions.defaults(),
+                NullOutputStream.INSTANCE);
+        outputBytes = result.bytesOut();
+        return result;
+    }
+}
@@ -1,20 +1,31 @@
 package vbotelho.dev.myConvertPdf.config;
 
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import vbotelho.dev.myConvertPdf.service.store.ArtifactStore;
+import vbotelho.dev.myConvertPdf.service.store.LocalArtifactStore;
+import vbotelho.dev.myConvertPdf.service.store.NodeWorkspace;
+import vbotelho.dev.myConvertPdf.service.store.SharedDirectoryArtifactStore;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     @Value("${app.upload.temp-dir}")
@@ -23,6 +34,35 @@ public class AppConfig {
     @Value("${app.upload.max-files:100}")
     private int maxFiles;
 
+    @Value("${spring.servlet.multipart.resolve-lazily:false}")
+    private boolean resolveLazily;
+
+    @Value("${app.jobs.workers:4}")
+    private int jobWorkers;
+
+    @Value("${app.jobs.queue-capacity:100}")
+    private int jobQueueCapacity;
+
+    @Value("${app.processing.parallelism:0}")
+    private int parallelism;
+
+    // Armazenamento dos arquivos gerados: local (diretório temporário) ou shared (diretório compartilhado)
+    @Value("${app.artifacts.store:local}")
+    private String artifactStoreType;
+
+    @Value("${app.artifacts.shared-dir:}")
+    private String artifactSharedDir;
+
+    @Value("${app.artifacts.node-id:}")
+    private String nodeId;
+
+    @Value("${app.artifacts.retention-minutes:30}")
+    private long artifactRetentionMinutes;
+
+    // Modo de execução: com threads virtuais o Spring Boot também as usa no Tomcat
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @PostConstruct
     public void init() {
         try {
@@ -31,24 +71,97 @@ public class AppConfig {
                 Files.createDirectories(tempPath);
                 System.out.println("✅ Diretório temporário criado: " + tempPath);
             }
-            
+
         } catch (IOException e) {
             System.err.println("❌ Erro ao criar diretório temporário: " + e.getMessage());
         }
     }
 
+    /**
+     * Diretório de trabalho da instância (jobs, sessões, cache), limpo na inicialização.
+     * Sem app.artifacts.node-id, a instância é identificada pelo processo e pelo host (pid@host).
+     */
+    @Bean
+    public NodeWorkspace nodeWorkspace() throws IOException {
+        String node = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        return NodeWorkspace.open(Paths.get(tempDir), node);
+    }
+
+    /**
+     * Armazenamento dos arquivos gerados: no diretório de trabalho da instância ou no diretório compartilhado
+     */
+    @Bean
+    public ArtifactStore artifactStore(NodeWorkspace workspace) throws IOException {
+        String node = workspace.nodeId();
+        long retentionMillis = TimeUnit.MINUTES.toMillis(artifactRetentionMinutes);
+
+        if ("shared".equalsIgnoreCase(artifactStoreType)) {
+            if (artifactSharedDir.isBlank()) {
+                throw new IllegalStateException("app.artifacts.shared-dir é obrigatório com app.artifacts.store=shared");
+            }
+            // O diretório da instância é limpo na inicialização e não pode conter nem ficar no compartilhado
+            Path shared = Paths.get(artifactSharedDir).toAbsolutePath().normalize();
+            Path local = workspace.directory().toAbsolutePath().normalize();
+            if (shared.startsWith(local) || local.startsWith(shared)) {
+                throw new IllegalStateException("app.artifacts.shared-dir não pode conter o diretório de trabalho da instância: "
+                        + local);
+            }
+            log.info("Arquivos gerados no diretório compartilhado {} (instância {})", artifactSharedDir, node);
+            return new SharedDirectoryArtifactStore(shared, node, retentionMillis);
+        }
+        return new LocalArtifactStore(workspace.resolve("artifacts"), node, retentionMillis);
+    }
+
+    /**
+     * Resolvedor multipart. Com resolução preguiçosa, as partes só são lidas quando o
+     * controller as acessa, permitindo que o upload em streaming leia o corpo diretamente.
+     */
     @Bean
     public MultipartResolver multipartResolver() {
-        return new StandardServletMultipartResolver();
+        StandardServletMultipartResolver resolver = new StandardServletMultipartResolver();
+        resolver.setResolveLazily(resolveLazily);
+        return resolver;
     }
 
+    /**
+     * Executor das conversões assíncronas (/api/convert/jobs).
+     * Com a fila cheia, novas tarefas são rejeitadas (TaskRejectedException).
+     */
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(8);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(jobWorkers);
+        executor.setMaxPoolSize(jobWorkers);
+        executor.setQueueCapacity(jobQueueCapacity);
         executor.setThreadNamePrefix("pdf-converter-");
+        if (virtualThreads) {
+            // Mantém a fila limitada (rejeição com 429), mas cada worker é uma thread virtual
+            executor.setThreadFactory(Thread.ofVirtual().name("pdf-converter-", 0).factory());
+        }
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor do estágio paralelo de preparação de imagens (decodificação e escala).
+     * Com parallelism = 0 utiliza o número de núcleos disponíveis.
+     * No modo de threads virtuais cada imagem usa uma thread virtual, e o trabalho de CPU
+     * é limitado pelo CpuWorkLimiter.
+     */
+    @Bean(name = "imageExecutor")
+    public Executor imageExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("image-worker-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("image-worker-");
         executor.initialize();
         return executor;
     }
@@ -1,26 +1,62 @@
 package vbotelho.dev.myConvertPdf.controller;
 
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.DataBinder;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import vbotelho.dev.myConvertPdf.dto.ArtifactStatsResponse;
+import vbotelho.dev.myConvertPdf.dto.CacheStatsResponse;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
 import vbotelho.dev.myConvertPdf.dto.ConversionResponse;
 import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+import vbotelho.dev.myConvertPdf.enums.JobStatus;
+import vbotelho.dev.myConvertPdf.service.ArtifactJanitor;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
 import vbotelho.dev.myConvertPdf.service.PdfConversionService;
 import vbotelho.dev.myConvertPdf.service.ValidationService;
+import vbotelho.dev.myConvertPdf.service.admission.MemoryAdmissionService;
+import vbotelho.dev.myConvertPdf.service.cache.PdfFragmentCache;
+import vbotelho.dev.myConvertPdf.service.dedup.ConversionDeduplicator;
+import vbotelho.dev.myConvertPdf.service.download.ArtifactDownloadService;
+import vbotelho.dev.myConvertPdf.service.exception.AdmissionRejectedException;
 import vbotelho.dev.myConvertPdf.service.exception.ConversionException;
 import vbotelho.dev.myConvertPdf.service.exception.InvalidUploadException;
+import vbotelho.dev.myConvertPdf.service.exception.JobQueueFullException;
+import vbotelho.dev.myConvertPdf.service.exception.SessionLimitExceededException;
+import vbotelho.dev.myConvertPdf.service.exception.SessionNotFoundException;
+import vbotelho.dev.myConvertPdf.service.job.ConversionJob;
+import vbotelho.dev.myConvertPdf.service.job.ConversionJobService;
+import vbotelho.dev.myConvertPdf.service.metrics.ConversionMetrics;
+import vbotelho.dev.myConvertPdf.service.session.ConversionSession;
+import vbotelho.dev.myConvertPdf.service.session.ConversionSessionService;
+import vbotelho.dev.myConvertPdf.service.thumbnail.ThumbnailService;
+import vbotelho.dev.myConvertPdf.service.upload.StreamingUpload;
+import vbotelho.dev.myConvertPdf.service.upload.StreamingUploadService;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -28,8 +64,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ConversionController {
 
+    // Cabeçalho das respostas em streaming com o id das miniaturas das páginas
+    private static final String CONVERSION_ID_HEADER = "X-Conversion-Id";
+
     private final PdfConversionService pdfConversionService;
     private final ValidationService validationService;
+    private final ConversionJobService conversionJobService;
+    private final PdfFragmentCache fragmentCache;
+    private final ConversionDeduplicator conversionDeduplicator;
+    private final ArtifactJanitor artifactJanitor;
+    private final MemoryAdmissionService memoryAdmissionService;
+    private final StreamingUploadService streamingUploadService;
+    private final ConversionMetrics conversionMetrics;
+    private final ConversionSessionService conversionSessionService;
+    private final ArtifactDownloadService artifactDownloadService;
+    private final ThumbnailService thumbnailService;
 
     /**
      * Endpoint para conversão de imagens em PDF
@@ -37,42 +86,50 @@ public class ConversionController {
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ConversionResponse> convertImages(
             @RequestParam("files") MultipartFile[] files,
-            @RequestParam("conversionType") String conversionTypeStr) {
+            @RequestParam("conversionType") String conversionTypeStr,
+            @ModelAttribute ConversionOptions options) {
 
         long startTime = System.currentTimeMillis();
 
         try {
-            List<MultipartFile> imageFiles = Arrays.asList(files);
+            List<MultipartFile> uploadedFiles = Arrays.asList(files);
             ConversionType conversionType = ConversionType.valueOf(conversionTypeStr);
 
             log.info("Recebida requisição de conversão: {} arquivos, tipo: {}",
-                    imageFiles.size(), conversionType);
-
-            // Validar arquivos
-            validationService.validateFiles(imageFiles);
+                    uploadedFiles.size(), conversionType);
 
-            // Processar conversão
-            Path resultPath;
-            String filename;
+            // Validar opções e arquivos
+            validationService.validateOptions(options);
+            List<MultipartFile> imageFiles = validateFiles(uploadedFiles, conversionType);
 
-            if (conversionType == ConversionType.SINGLE_PDF) {
-                resultPath = pdfConversionService.convertToPdf(imageFiles);
-                filename = resultPath.getFileName().toString();
-            } else {
-                resultPath = pdfConversionService.convertToMultiplePdfsZip(imageFiles);
-                filename = resultPath.getFileName().toString();
-            }
+            // Processar conversão (requisições idênticas compartilham o resultado)
+            ConversionResult result = conversionDeduplicator.convert(imageFiles, conversionType, options, () -> {
+                MemoryAdmissionService.Permit permit = memoryAdmissionService.admit(imageFiles,
+                        options.getQualityProfile());
+                try {
+                    return pdfConversionService.convert(imageFiles, conversionType, options, processed -> { });
+                } finally {
+                    permit.close();
+                }
+            });
+            String filename = result.path().getFileName().toString();
 
             long processingTime = System.currentTimeMillis() - startTime;
 
             ConversionResponse response = ConversionResponse.builder()
                     .success(true)
-                    .message("Conversão realizada com sucesso")
+                    .message(completionMessage(result))
                     .downloadUrl("/api/convert/download/" + filename)
                     .filename(filename)
                     .totalImages(imageFiles.size())
-                    .processedImages(imageFiles.size())
+                    .processedImages(result.processedImages())
+                    .failedImages(result.failedImages())
                     .processingTimeMs(processingTime)
+                    .bytesIn(result.bytesIn())
+                    .bytesOut(result.bytesOut())
+                    .bytesSaved(result.bytesSaved())
+                    .conversionId(result.conversionId())
+                    .images(result.images())
                     .build();
 
             return ResponseEntity.ok(response);
@@ -81,9 +138,12 @@ public class ConversionController {
             log.error("Erro de validação", e);
             return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
 
+        } catch (AdmissionRejectedException e) {
+            return handleAdmissionRejected(e);
+
         } catch (ConversionException e) {
             log.error("Erro de conversão", e);
-            return createErrorResponse(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return conversionErrorResponse(e);
 
         } catch (Exception e) {
             log.error("Erro inesperado", e);
@@ -93,44 +153,425 @@ public class ConversionController {
     }
 
     /**
-     * Endpoint para download do arquivo convertido
+     * Endpoint para conversão com resposta em streaming.
+     * O PDF/ZIP é escrito diretamente na resposta (chunked), sem passar pelo disco.
      */
-    @GetMapping("/download/{filename}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String filename) {
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> convertImagesStream(
+            @RequestParam("files") MultipartFile[] files,
+            @RequestParam("conversionType") String conversionTypeStr,
+            @ModelAttribute ConversionOptions options,
+            HttpServletRequest request) {
+
+        List<MultipartFile> uploadedFiles = Arrays.asList(files);
+        ConversionType conversionType = parseConversionType(conversionTypeStr);
+
+        log.info("Recebida requisição de conversão em streaming: {} arquivos, tipo: {}",
+                uploadedFiles.size(), conversionType);
+
+        // Validar opções e arquivos antes de iniciar a resposta
+        validationService.validateOptions(options);
+        List<MultipartFile> imageFiles = validateFiles(uploadedFiles, conversionType);
+
+        boolean singlePdf = conversionType == ConversionType.SINGLE_PDF;
+        String filename = singlePdf ? "converted.pdf" : "converted_pdfs.zip";
+        String conversionId = UUID.randomUUID().toString();
+
+        // Admissão antes de iniciar a resposta, para ainda poder responder 503
+        MemoryAdmissionService.Permit permit = memoryAdmissionService.admit(imageFiles,
+                options.getQualityProfile());
+        releaseOnCompletion(request, permit);
+
+        StreamingResponseBody body = outputStream -> {
+            try (permit) {
+                if (singlePdf) {
+                    pdfConversionService.convertToPdf(imageFiles, options, conversionId, outputStream);
+                } else {
+                    pdfConversionService.convertToMultiplePdfsZip(imageFiles, options, outputStream);
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        if (singlePdf && options.isThumbnails()) {
+            // Id das miniaturas das páginas, que ficam disponíveis enquanto o PDF é enviado
+            builder.header(CONVERSION_ID_HEADER, conversionId);
+        }
+        return builder
+                .contentType(singlePdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    /**
+     * Endpoint para conversão com upload e resposta em streaming.
+     * O corpo multipart é lido parte a parte: cada imagem é validada e convertida assim que
+     * chega, enquanto as seguintes ainda estão sendo recebidas. Os campos conversionType e
+     * opções devem ser enviados antes dos arquivos.
+     */
+    @PostMapping(value = "/stream/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> convertUploadStream(HttpServletRequest request) {
+        StreamingUpload upload = streamingUploadService.open(request);
+
+        String conversionTypeStr = upload.getFields().get("conversionType");
+        if (conversionTypeStr == null) {
+            throw new InvalidUploadException("O campo conversionType deve ser enviado antes dos arquivos");
+        }
+        ConversionType conversionType = parseConversionType(conversionTypeStr);
+        ConversionOptions options = bindOptions(upload.getFields());
+        validationService.validateOptions(options);
+
+        // Lê e valida o primeiro arquivo antes de iniciar a resposta
+        MultipartFile firstImage;
         try {
-            String tempDir = System.getProperty("java.io.tmpdir") + "/image-to-pdf-temp";
-            Path filePath = Path.of(tempDir, filename);
+            if (!upload.hasNext()) {
+                throw new InvalidUploadException("Nenhum arquivo foi enviado");
+            }
+            firstImage = upload.peek();
+        } catch (UncheckedIOException e) {
+            throw new InvalidUploadException(e.getMessage(), e);
+        }
+
+        log.info("Recebida requisição de conversão com upload em streaming, tipo: {}", conversionType);
+
+        boolean singlePdf = conversionType == ConversionType.SINGLE_PDF;
+        String filename = singlePdf ? "converted.pdf" : "converted_pdfs.zip";
+        String conversionId = UUID.randomUUID().toString();
+
+        // A reserva parte da primeira imagem e é ampliada pelas seguintes, conforme chegam
+        MemoryAdmissionService.StreamingPermit permit = memoryAdmissionService.admitStreaming(firstImage,
+                options.getQualityProfile());
+        releaseOnCompletion(request, permit);
+        upload.admitEach(permit::admit);
 
-            if (!filePath.toFile().exists()) {
-                log.error("Arquivo não encontrado: {}", filename);
-                return ResponseEntity.notFound().build();
+        StreamingResponseBody body = outputStream -> {
+            try (permit) {
+                if (singlePdf) {
+                    pdfConversionService.convertToPdf(upload, options, conversionId, outputStream);
+                } else {
+                    pdfConversionService.convertToMultiplePdfsZip(upload, options, outputStream);
+                }
             }
+            log.info("Upload em streaming concluído: {} arquivos recebidos", upload.getFileCount());
+        };
 
-            Resource resource = new FileSystemResource(filePath);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        if (singlePdf && options.isThumbnails()) {
+            // Id das miniaturas das páginas, que ficam disponíveis enquanto o PDF é enviado
+            builder.header(CONVERSION_ID_HEADER, conversionId);
+        }
+        return builder
+                .contentType(singlePdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
 
-            // Determinar tipo de conteúdo
-            String contentType = filename.endsWith(".zip") ?
-                    "application/zip" : "application/pdf";
+    /**
+     * Endpoint para conversão assíncrona: retorna imediatamente o id do job
+     */
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ConversionResponse> submitJob(
+            @RequestParam("files") MultipartFile[] files,
+            @RequestParam("conversionType") String conversionTypeStr,
+            @ModelAttribute ConversionOptions options) {
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + filename + "\"");
-            headers.add(HttpHeaders.CONTENT_TYPE, contentType);
+        List<MultipartFile> uploadedFiles = Arrays.asList(files);
+        ConversionType conversionType = parseConversionType(conversionTypeStr);
 
-            log.info("Download iniciado: {}", filename);
+        // Validar opções e arquivos
+        validationService.validateOptions(options);
+        List<MultipartFile> imageFiles = validateFiles(uploadedFiles, conversionType);
 
-            // Agendar remoção do arquivo após download (em thread separada)
-            scheduleFileCleanup(filePath);
+        ConversionJob job = conversionJobService.submit(imageFiles, conversionType, options);
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentLength(filePath.toFile().length())
-                    .body(resource);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(toJobResponse(job));
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao fazer download", e);
-            return ResponseEntity.internalServerError().build();
+    /**
+     * Endpoint para consulta do andamento de uma conversão assíncrona
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ConversionResponse> getJob(@PathVariable String jobId) {
+        return conversionJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(toJobResponse(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint para abrir uma sessão de conversão incremental: lotes de imagens são
+     * acrescentados a um mesmo PDF, sem reenviar as páginas anteriores
+     */
+    @PostMapping("/sessions")
+    public ResponseEntity<ConversionResponse> createSession(@ModelAttribute ConversionOptions options) {
+        validationService.validateOptions(options);
+        ConversionSession session = conversionSessionService.create(options);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(ConversionResponse.builder()
+                .success(true)
+                .message("Sessão aberta")
+                .sessionId(session.getId())
+                .conversionId(thumbnailsId(session.getOptions(), session.getId()))
+                .totalPages(0)
+                .build());
+    }
+
+    /**
+     * Endpoint para acrescentar um lote de imagens ao PDF da sessão
+     */
+    @PostMapping(value = "/sessions/{sessionId}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ConversionResponse> appendToSession(@PathVariable String sessionId,
+                                                              @RequestParam("files") MultipartFile[] files) {
+        long startTime = System.currentTimeMillis();
+        ConversionSession session = conversionSessionService.getSession(sessionId);
+
+        List<MultipartFile> imageFiles = validateFiles(Arrays.asList(files), ConversionType.SINGLE_PDF);
+
+        try {
+            ConversionResult result;
+            MemoryAdmissionService.Permit permit = memoryAdmissionService.admit(imageFiles,
+                    session.getOptions().getQualityProfile());
+            try {
+                result = conversionSessionService.append(sessionId, imageFiles);
+            } finally {
+                permit.close();
+            }
+
+            return ResponseEntity.ok(ConversionResponse.builder()
+                    .success(true)
+                    .message(completionMessage(result))
+                    .sessionId(sessionId)
+                    .conversionId(thumbnailsId(session.getOptions(), sessionId))
+                    .totalPages(session.getPageCount())
+                    .totalImages(imageFiles.size())
+                    .processedImages(result.processedImages())
+                    .failedImages(result.failedImages())
+                    .processingTimeMs(System.currentTimeMillis() - startTime)
+                    .bytesIn(result.bytesIn())
+                    .bytesOut(result.bytesOut())
+                    .bytesSaved(result.bytesSaved())
+                    .images(result.images())
+                    .build());
+
+        } catch (ConversionException e) {
+            log.error("Erro ao acrescentar imagens à sessão {}", sessionId, e);
+            ResponseEntity<ConversionResponse> response = conversionErrorResponse(e);
+            response.getBody().setSessionId(sessionId);
+            response.getBody().setTotalPages(session.getPageCount());
+            return response;
+        }
+    }
+
+    /**
+     * Endpoint para fechar a sessão: finaliza o PDF e retorna o link de download
+     */
+    @PostMapping("/sessions/{sessionId}/close")
+    public ResponseEntity<ConversionResponse> closeSession(@PathVariable String sessionId) {
+        ConversionSession session = conversionSessionService.getSession(sessionId);
+        ConversionResult result = conversionSessionService.close(sessionId);
+        String filename = result.path().getFileName().toString();
+
+        return ResponseEntity.ok(ConversionResponse.builder()
+                .success(true)
+                .message("Sessão finalizada")
+                .sessionId(sessionId)
+                .conversionId(thumbnailsId(session.getOptions(), sessionId))
+                .downloadUrl("/api/convert/download/" + filename)
+                .filename(filename)
+                .totalImages(session.getImageCount())
+                .processedImages(session.getImageCount())
+                .totalPages(session.getPageCount())
+                .bytesIn(result.bytesIn())
+                .bytesOut(result.bytesOut())
+                .build());
+    }
+
+    /**
+     * Endpoint para cancelar a sessão, descartando o PDF em andamento
+     */
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Void> cancelSession(@PathVariable String sessionId) {
+        conversionSessionService.cancel(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint com as estatísticas do cache de páginas convertidas
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsResponse> getCacheStats() {
+        return ResponseEntity.ok(fragmentCache.getStats());
+    }
+
+    /**
+     * Endpoint com a quantidade de arquivos e bytes retidos no diretório temporário
+     */
+    @GetMapping("/artifacts/stats")
+    public ResponseEntity<ArtifactStatsResponse> getArtifactStats() {
+        return ResponseEntity.ok(artifactJanitor.getStats());
+    }
+
+    /**
+     * Trata erros de validação dos endpoints que não capturam suas próprias exceções
+     */
+    @ExceptionHandler(InvalidUploadException.class)
+    public ResponseEntity<ConversionResponse> handleInvalidUpload(InvalidUploadException e) {
+        log.error("Erro de validação", e);
+        return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Endpoint para download do arquivo convertido. Suporta retomada (Range/If-Range) e
+     * GET condicional (ETag/If-None-Match)
+     */
+    @GetMapping("/download/{filename}")
+    public void downloadFile(@PathVariable String filename, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        artifactDownloadService.serve(filename, request, response);
+    }
+
+    /**
+     * Endpoint com a miniatura (JPEG) de uma página do PDF, disponível assim que a página é gravada.
+     * O id é o conversionId da resposta (id do job ou da sessão, ou o cabeçalho X-Conversion-Id no streaming)
+     */
+    @GetMapping("/{conversionId}/pages/{pageNumber}/thumbnail")
+    public ResponseEntity<byte[]> getPageThumbnail(@PathVariable String conversionId, @PathVariable int pageNumber) {
+        byte[] thumbnail = thumbnailService.get(conversionId, pageNumber);
+        if (thumbnail == null) {
+            return ResponseEntity.notFound().build();
         }
+        // Uma página gravada não muda mais
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate())
+                .body(thumbnail);
+    }
+
+    /**
+     * Trata o acesso a sessões inexistentes ou já fechadas
+     */
+    @ExceptionHandler(SessionNotFoundException.class)
+    public ResponseEntity<ConversionResponse> handleSessionNotFound(SessionNotFoundException e) {
+        log.warn(e.getMessage());
+        return createErrorResponse(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Trata a rejeição de novas sessões quando o limite de sessões abertas é atingido
+     */
+    @ExceptionHandler(SessionLimitExceededException.class)
+    public ResponseEntity<ConversionResponse> handleSessionLimitExceeded(SessionLimitExceededException e) {
+        log.warn("Sessão rejeitada: {}", e.getMessage());
+        return createErrorResponse(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * Trata a rejeição de jobs quando a fila de conversões está cheia
+     */
+    @ExceptionHandler(JobQueueFullException.class)
+    public ResponseEntity<ConversionResponse> handleJobQueueFull(JobQueueFullException e) {
+        log.warn("Job rejeitado: {}", e.getMessage());
+        return createErrorResponse(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * Trata a rejeição por falta de memória para a conversão
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ConversionResponse> handleAdmissionRejected(AdmissionRejectedException e) {
+        log.warn("Conversão rejeitada: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(memoryAdmissionService.getRetryAfterSeconds()))
+                .body(createErrorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE).getBody());
+    }
+
+    /**
+     * Monta a resposta com o estado atual de um job
+     */
+    private ConversionResponse toJobResponse(ConversionJob job) {
+        ConversionResponse.ConversionResponseBuilder builder = ConversionResponse.builder()
+                .jobId(job.getId())
+                .conversionId(job.getConversionType() == ConversionType.SINGLE_PDF
+                        ? thumbnailsId(job.getOptions(), job.getId()) : null)
+                .status(job.getStatus())
+                .success(job.getStatus() != JobStatus.FAILED)
+                .totalImages(job.getTotalImages())
+                .processedImages(job.getProcessedImages())
+                .processingTimeMs(job.getProcessingTimeMs())
+                .images(job.isFinished() ? job.getImageResults() : null);
+
+        switch (job.getStatus()) {
+            case QUEUED -> builder.message("Conversão aguardando na fila");
+            case RUNNING -> builder.message("Conversão em andamento");
+            case DONE -> {
+                String filename = job.getResult().path().getFileName().toString();
+                builder.message(completionMessage(job.getResult()))
+                        .failedImages(job.getResult().failedImages())
+                        .downloadUrl("/api/convert/download/" + filename)
+                        .filename(filename)
+                        .bytesIn(job.getResult().bytesIn())
+                        .bytesOut(job.getResult().bytesOut())
+                        .bytesSaved(job.getResult().bytesSaved());
+            }
+            case FAILED -> builder.message("Erro na conversão")
+                    .failedImages(ConversionResult.count(job.getImageResults(), ImageStatus.FAILED))
+                    .errorDetails(job.getErrorMessage());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Libera a permissão de admissão ao final do processamento assíncrono da resposta (conclusão,
+     * timeout ou erro), também quando o corpo em streaming nunca chega a ser executado
+     */
+    private void releaseOnCompletion(HttpServletRequest request, MemoryAdmissionService.Permit permit) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(permit, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                permit.close();
+            }
+        });
+    }
+
+    /**
+     * Id das miniaturas das páginas, se solicitadas nas opções
+     */
+    private String thumbnailsId(ConversionOptions options, String id) {
+        return options.isThumbnails() ? id : null;
+    }
+
+    /**
+     * Mensagem de conclusão, indicando as imagens que não puderam ser convertidas
+     */
+    private String completionMessage(ConversionResult result) {
+        int failed = result.failedImages();
+        return failed == 0
+                ? "Conversão realizada com sucesso"
+                : String.format("Conversão concluída com %d imagem(ns) não convertida(s)", failed);
+    }
+
+    /**
+     * Valida os arquivos enviados, cronometrando a validação
+     */
+    private List<MultipartFile> validateFiles(List<MultipartFile> uploadedFiles, ConversionType conversionType) {
+        return conversionMetrics.time(ConversionMetrics.Stage.VALIDATION, conversionType,
+                () -> validationService.validateFiles(uploadedFiles));
+    }
+
+    /**
+     * Resposta de erro de conversão: falha das imagens enviadas (422, com o resultado de cada
+     * imagem) ou erro interno (500)
+     */
+    private ResponseEntity<ConversionResponse> conversionErrorResponse(ConversionException e) {
+        HttpStatus status = e.getImageResults().isEmpty()
+                ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.UNPROCESSABLE_CONTENT;
+        ResponseEntity<ConversionResponse> response = createErrorResponse(e.getMessage(), status);
+        ConversionResponse body = response.getBody();
+        body.setTotalImages(e.getImageResults().size());
+        body.setProcessedImages(ConversionResult.count(e.getImageResults(), ImageStatus.CONVERTED));
+        body.setFailedImages(ConversionResult.count(e.getImageResults(), ImageStatus.FAILED));
+        body.setImages(e.getImageResults());
+        return response;
     }
 
     /**
@@ -147,16 +588,28 @@ public class ConversionController {
     }
 
     /**
-     * Agenda limpeza do arquivo após download
+     * Aplica os campos do formulário sobre as opções padrão de conversão
      */
-    private void scheduleFileCleanup(Path filePath) {
-        new Thread(() -> {
-            try {
-                Thread.sleep(30000); // Aguarda 30 segundos
-                pdfConversionService.deleteFile(filePath);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+    private ConversionOptions bindOptions(Map<String, String> fields) {
+        ConversionOptions options = ConversionOptions.defaults();
+        DataBinder binder = new DataBinder(options, "options");
+        binder.bind(new MutablePropertyValues(fields));
+
+        FieldError error = binder.getBindingResult().getFieldError();
+        if (error != null) {
+            throw new InvalidUploadException("Opção de conversão inválida: " + error.getField());
+        }
+        return options;
+    }
+
+    /**
+     * Converte o tipo de conversão informado, rejeitando valores desconhecidos
+     */
+    private ConversionType parseConversionType(String conversionTypeStr) {
+        try {
+            return ConversionType.valueOf(conversionTypeStr);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUploadException("Tipo de conversão inválido: " + conversionTypeStr, e);
+        }
     }
 }
\ No newline at end of file
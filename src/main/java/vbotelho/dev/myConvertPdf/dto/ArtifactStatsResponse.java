@@ -0,0 +1,17 @@
+package vbotelho.dev.myConvertPdf.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtifactStatsResponse {
+    private int retainedFiles;
+    private long retainedBytes;
+    private long deletedFiles;
+    private long deletedBytes;
+}
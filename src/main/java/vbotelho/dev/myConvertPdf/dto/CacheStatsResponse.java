@@ -0,0 +1,21 @@
+package vbotelho.dev.myConvertPdf.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private boolean enabled;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private int memoryEntries;
+    private long memoryBytes;
+    private int diskEntries;
+    private long diskBytes;
+}
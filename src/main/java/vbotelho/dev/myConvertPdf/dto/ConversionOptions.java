@@ -0,0 +1,51 @@
+package vbotelho.dev.myConvertPdf.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vbotelho.dev.myConvertPdf.enums.FailurePolicy;
+import vbotelho.dev.myConvertPdf.enums.OutputProfile;
+import vbotelho.dev.myConvertPdf.enums.PageFormat;
+import vbotelho.dev.myConvertPdf.enums.PageOrientation;
+import vbotelho.dev.myConvertPdf.enums.QualityProfile;
+
+/**
+ * Opções de conversão informadas na requisição (parâmetros opcionais do formulário)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionOptions {
+    @Builder.Default
+    private QualityProfile qualityProfile = QualityProfile.ORIGINAL;
+
+    @Builder.Default
+    private FailurePolicy failurePolicy = FailurePolicy.BEST_EFFORT;
+
+    @Builder.Default
+    private OutputProfile outputProfile = OutputProfile.STANDARD;
+
+    @Builder.Default
+    private PageFormat pageFormat = PageFormat.A4;
+
+    @Builder.Default
+    private PageOrientation orientation = PageOrientation.PORTRAIT;
+
+    /** Margem da página, em pontos */
+    @Builder.Default
+    private int margin = 36;
+
+    /** Imagens por página (1, 2, 4 ou 6): mais de uma monta uma folha de miniaturas */
+    @Builder.Default
+    private int imagesPerPage = 1;
+
+    /** Gera miniaturas das páginas (PDF único), servidas em /api/convert/{id}/pages/{n}/thumbnail */
+    @Builder.Default
+    private boolean thumbnails = false;
+
+    public static ConversionOptions defaults() {
+        return new ConversionOptions();
+    }
+}
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import vbotelho.dev.myConvertPdf.enums.JobStatus;
+
+import java.util.List;
 
 @Data
 @Builder
@@ -16,6 +19,16 @@ public class ConversionResponse {
     private String filename;
     private int totalImages;
     private int processedImages;
+    private int failedImages;
     private long processingTimeMs;
+    private long bytesIn;
+    private long bytesOut;
+    private long bytesSaved;
     private String errorDetails;
+    private String jobId;
+    private JobStatus status;
+    private String sessionId;
+    private String conversionId;
+    private Integer totalPages;
+    private List<ImageResult> images;
 }
@@ -0,0 +1,26 @@
+package vbotelho.dev.myConvertPdf.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+
+/**
+ * Resultado da conversão de uma imagem
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageResult {
+    private String filename;
+    private ImageStatus status;
+    private String error;
+    /** Tempo de preparo (decodificação, reamostragem, geração da página) */
+    private long decodeTimeMs;
+    /** Tempo de gravação no PDF/ZIP */
+    private long embedTimeMs;
+    /** Bytes gravados na saída para a imagem */
+    private long outputBytes;
+}
@@ -0,0 +1,11 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+/**
+ * Comportamento da conversão quando uma imagem falha
+ */
+public enum FailurePolicy {
+    /** Ignora a imagem com erro e converte as demais */
+    BEST_EFFORT,
+    /** Interrompe a conversão na primeira falha, sem gerar resultado */
+    FAIL_FAST
+}
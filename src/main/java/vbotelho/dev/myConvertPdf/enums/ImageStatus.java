@@ -0,0 +1,13 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+/**
+ * Situação de cada imagem ao final da conversão
+ */
+public enum ImageStatus {
+    /** Imagem incluída no resultado */
+    CONVERTED,
+    /** Falha ao decodificar ou gravar a imagem */
+    FAILED,
+    /** Não processada porque a conversão foi interrompida (fail-fast) */
+    SKIPPED
+}
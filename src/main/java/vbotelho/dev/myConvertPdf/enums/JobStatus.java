@@ -0,0 +1,8 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
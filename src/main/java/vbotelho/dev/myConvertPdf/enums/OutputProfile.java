@@ -0,0 +1,21 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Perfil de gravação do PDF gerado.
+ * O perfil compacto reduz o tamanho do arquivo (e o tráfego de download) em troca de mais CPU na escrita.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OutputProfile {
+    STANDARD(false, false),
+    COMPACT(true, true);
+
+    /** Grava os objetos em object streams e a tabela de referências como stream comprimido */
+    private final boolean fullCompression;
+
+    /** Imagens repetidas no documento (logotipos, papel timbrado) são gravadas uma única vez */
+    private final boolean smartMode;
+}
@@ -0,0 +1,19 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Tamanho das páginas do PDF gerado (em pontos, orientação retrato)
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PageFormat {
+    A4(595, 842),
+    LETTER(612, 792),
+    /** A página assume o tamanho da imagem (mais as margens) */
+    FIT_IMAGE(0, 0);
+
+    private final float width;
+    private final float height;
+}
@@ -0,0 +1,11 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+/**
+ * Orientação das páginas do PDF gerado
+ */
+public enum PageOrientation {
+    PORTRAIT,
+    LANDSCAPE,
+    /** Paisagem para imagens mais largas que altas, retrato para as demais (por página) */
+    AUTO
+}
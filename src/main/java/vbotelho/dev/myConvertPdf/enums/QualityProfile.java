@@ -0,0 +1,22 @@
+package vbotelho.dev.myConvertPdf.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Perfil de qualidade das imagens embutidas no PDF.
+ * Imagens com resolução acima do alvo (para o tamanho que ocupam na página) são reamostradas.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QualityProfile {
+    ORIGINAL(0, 1.0f),
+    PRINT_300DPI(300, 0.90f),
+    SCREEN_150DPI(150, 0.80f);
+
+    /** Resolução alvo em DPI (0 = mantém a imagem original) */
+    private final int targetDpi;
+
+    /** Qualidade da recodificação JPEG (0 a 1) */
+    private final float jpegQuality;
+}
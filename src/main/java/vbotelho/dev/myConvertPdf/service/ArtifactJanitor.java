@@ -0,0 +1,110 @@
+package vbotelho.dev.myConvertPdf.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import vbotelho.dev.myConvertPdf.dto.ArtifactStatsResponse;
+import vbotelho.dev.myConvertPdf.service.store.ArtifactStore;
+import vbotelho.dev.myConvertPdf.service.store.StoredArtifact;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serviço de limpeza dos arquivos gerados, mantidos no {@link ArtifactStore}.
+ * <p>
+ * Periodicamente remove os arquivos expirados (a expiração é renovada a cada download) e, se o
+ * total ultrapassar a cota, os mais antigos. Com o armazenamento compartilhado, todas as
+ * instâncias executam a mesma limpeza sobre o diretório comum.
+ */
+@Slf4j
+@Service
+public class ArtifactJanitor {
+
+    private static final long MB = 1024 * 1024;
+
+    private final ArtifactStore artifactStore;
+    private final AtomicLong deletedFiles = new AtomicLong();
+    private final AtomicLong deletedBytes = new AtomicLong();
+    // Total retido na última limpeza, lido pela métrica sem listar o armazenamento
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    @Value("${app.artifacts.retention-minutes:30}")
+    private long retentionMinutes;
+
+    @Value("${app.artifacts.max-total-mb:2048}")
+    private long maxTotalMb;
+
+    public ArtifactJanitor(ArtifactStore artifactStore) {
+        this.artifactStore = artifactStore;
+    }
+
+    /**
+     * Remove um arquivo do armazenamento
+     */
+    public void delete(StoredArtifact artifact) {
+        if (artifactStore.delete(artifact.name())) {
+            deletedFiles.incrementAndGet();
+            deletedBytes.addAndGet(artifact.size());
+            log.debug("Arquivo removido: {}", artifact.name());
+        }
+    }
+
+    /**
+     * Remove arquivos expirados e, se necessário, os mais antigos até respeitar a cota
+     */
+    @Scheduled(fixedDelayString = "${app.artifacts.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        List<StoredArtifact> retained = new ArrayList<>();
+        for (StoredArtifact artifact : artifactStore.list()) {
+            if (artifact.expiresAt() < now) {
+                delete(artifact);
+            } else {
+                retained.add(artifact);
+            }
+        }
+
+        long maxBytes = maxTotalMb * MB;
+        long totalBytes = retained.stream().mapToLong(StoredArtifact::size).sum();
+        if (totalBytes > maxBytes) {
+            retained.sort(Comparator.comparingLong(StoredArtifact::createdAt));
+            for (StoredArtifact artifact : retained) {
+                if (totalBytes <= maxBytes) {
+                    break;
+                }
+                delete(artifact);
+                totalBytes -= artifact.size();
+            }
+        }
+
+        int incomplete = artifactStore.purgeIncomplete(now - TimeUnit.MINUTES.toMillis(retentionMinutes));
+        if (incomplete > 0) {
+            log.info("Gravações incompletas removidas: {}", incomplete);
+        }
+
+        retainedBytes.set(totalBytes);
+        log.debug("Arquivos retidos: {} ({} bytes)", retained.size(), totalBytes);
+    }
+
+    /**
+     * Bytes retidos apurados na última limpeza (atualizado a cada app.artifacts.cleanup-interval-ms)
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public ArtifactStatsResponse getStats() {
+        List<StoredArtifact> artifacts = artifactStore.list();
+        return ArtifactStatsResponse.builder()
+                .retainedFiles(artifacts.size())
+                .retainedBytes(artifacts.stream().mapToLong(StoredArtifact::size).sum())
+                .deletedFiles(deletedFiles.get())
+                .deletedBytes(deletedBytes.get())
+                .build();
+    }
+}
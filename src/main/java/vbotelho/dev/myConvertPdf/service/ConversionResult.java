@@ -0,0 +1,58 @@
+package vbotelho.dev.myConvertPdf.service;
+
+import vbotelho.dev.myConvertPdf.dto.ImageResult;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Resultado de uma conversão
+ *
+ * @param path         Arquivo gerado (null quando o resultado foi escrito em um stream)
+ * @param bytesIn      Soma do tamanho das imagens recebidas
+ * @param bytesOut     Tamanho do PDF/ZIP gerado
+ * @param images       Resultado de cada imagem, na ordem do upload
+ * @param bytesSaved   Bytes economizados pelo perfil de saída ao reaproveitar imagens repetidas
+ * @param conversionId Id das miniaturas das páginas (null se não geradas, como no ZIP)
+ */
+public record ConversionResult(Path path, long bytesIn, long bytesOut, List<ImageResult> images, long bytesSaved,
+                               String conversionId) {
+
+    public ConversionResult(Path path, long bytesIn, long bytesOut, List<ImageResult> images) {
+        this(path, bytesIn, bytesOut, images, 0);
+    }
+
+    public ConversionResult(Path path, long bytesIn, long bytesOut, List<ImageResult> images, long bytesSaved) {
+        this(path, bytesIn, bytesOut, images, bytesSaved, null);
+    }
+
+    public ConversionResult withPath(Path newPath) {
+        return new ConversionResult(newPath, bytesIn, bytesOut, images, bytesSaved, conversionId);
+    }
+
+    public ConversionResult withConversionId(String newConversionId) {
+        return new ConversionResult(path, bytesIn, bytesOut, images, bytesSaved, newConversionId);
+    }
+
+    /**
+     * Quantidade de imagens incluídas no resultado
+     */
+    public int processedImages() {
+        return count(images, ImageStatus.CONVERTED);
+    }
+
+    /**
+     * Quantidade de imagens que falharam
+     */
+    public int failedImages() {
+        return count(images, ImageStatus.FAILED);
+    }
+
+    /**
+     * Quantidade de imagens na situação informada
+     */
+    public static int count(List<ImageResult> images, ImageStatus status) {
+        return (int) images.stream().filter(image -> image.getStatus() == status).count();
+    }
+}
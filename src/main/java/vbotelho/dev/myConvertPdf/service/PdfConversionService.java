@@ -1,234 +1,919 @@
 package vbotelho.dev.myConvertPdf.service;
 
 
+import com.itextpdf.io.colors.IccProfile;
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.io.image.ImageDataFactory;
-import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.AreaBreak;
-import com.itextpdf.layout.element.Image;
-import com.itextpdf.layout.properties.AreaBreakType;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.colorspace.PdfCieBasedCs;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.AutoCloseInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.dto.ImageResult;
+import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.enums.FailurePolicy;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+import vbotelho.dev.myConvertPdf.enums.OutputProfile;
+import vbotelho.dev.myConvertPdf.service.cache.PdfFragmentCache;
 import vbotelho.dev.myConvertPdf.service.exception.ConversionException;
-
-import java.io.FileOutputStream;
+import vbotelho.dev.myConvertPdf.service.metrics.ConversionMetrics;
+import vbotelho.dev.myConvertPdf.service.pipeline.AbortableOutputStream;
+import vbotelho.dev.myConvertPdf.service.pipeline.CpuWorkLimiter;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageFrames;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageInfo;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImagePipeline;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageResampler;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageThumbnails;
+import vbotelho.dev.myConvertPdf.service.pipeline.JpegHeader;
+import vbotelho.dev.myConvertPdf.service.pipeline.PageLayout;
+import vbotelho.dev.myConvertPdf.service.pipeline.PageThumbnails;
+import vbotelho.dev.myConvertPdf.service.pipeline.PdfEntry;
+import vbotelho.dev.myConvertPdf.service.pipeline.PreparedImage;
+import vbotelho.dev.myConvertPdf.service.pipeline.RepeatedImages;
+import vbotelho.dev.myConvertPdf.service.pipeline.SheetWriter;
+import vbotelho.dev.myConvertPdf.service.pipeline.ZipArchiveWriter;
+import vbotelho.dev.myConvertPdf.service.store.ArtifactStore;
+import vbotelho.dev.myConvertPdf.service.thumbnail.ThumbnailService;
+import vbotelho.dev.myConvertPdf.service.upload.ProbedImageFile;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class PdfConversionService {
-    @Value("${app.upload.temp-dir}")
-    private String tempDir;
+    private static final IntConsumer NO_PROGRESS = processed -> { };
+
+    // Caracteres não aceitos em nomes de arquivo (Windows) e caracteres de controle
+    private static final Pattern UNSAFE_NAME_CHARS = Pattern.compile("[\\\\/:*?\"<>|\\p{Cntrl}]");
+    private static final int MAX_ENTRY_NAME_LENGTH = 200;
+
+    private final ImagePipeline imagePipeline;
+    private final PdfFragmentCache fragmentCache;
+    private final ArtifactStore artifactStore;
+    private final ImageResampler imageResampler;
+    private final ConversionMetrics conversionMetrics;
+    private final ThumbnailService thumbnailService;
+    private final CpuWorkLimiter cpuWorkLimiter;
+
+    @Value("${app.processing.jpeg-passthrough:true}")
+    private boolean jpegPassthrough;
+
+    @Value("${app.zip.store-entries:false}")
+    private boolean storeZipEntries;
+
+    @Value("${app.zip.parallel-deflate:true}")
+    private boolean parallelDeflate;
+
+    @Value("${app.zip.deflate-level:" + Deflater.DEFAULT_COMPRESSION + "}")
+    private int deflateLevel;
 
-    @Value("${app.processing.batch-size}")
-    private int batchSize;
+    @Value("${app.output.compression-level:9}")
+    private int compressionLevel;
+
+    /**
+     * Converte as imagens conforme o tipo de conversão, gravando o resultado no diretório temporário
+     *
+     * @param images   Lista de imagens
+     * @param type     Tipo de conversão
+     * @param options  Opções de conversão
+     * @param progress Recebe a quantidade de imagens processadas até o momento
+     * @return Resultado com o caminho do arquivo gerado
+     */
+    public ConversionResult convert(List<MultipartFile> images, ConversionType type,
+                                    ConversionOptions options, IntConsumer progress) {
+        return convert(images, type, options, UUID.randomUUID().toString(), progress);
+    }
+
+    /**
+     * Converte as imagens conforme o tipo de conversão, gravando o resultado no diretório temporário
+     *
+     * @param images       Lista de imagens
+     * @param type         Tipo de conversão
+     * @param options      Opções de conversão
+     * @param conversionId Id da conversão, que identifica as miniaturas das páginas (apenas PDF único)
+     * @param progress     Recebe a quantidade de imagens processadas até o momento
+     * @return Resultado com o caminho do arquivo gerado
+     */
+    public ConversionResult convert(List<MultipartFile> images, ConversionType type,
+                                    ConversionOptions options, String conversionId, IntConsumer progress) {
+        return type == ConversionType.SINGLE_PDF
+                ? convertToPdf(images, options, conversionId, progress)
+                : convertToMultiplePdfsZip(images, options, progress);
+    }
 
     /**
      * Converte múltiplas imagens em um único PDF
      *
      * @param images Lista de imagens
-     * @return Caminho do arquivo PDF gerado
+     * @return Resultado com o caminho do arquivo PDF gerado
      */
-    public Path convertToPdf(List<MultipartFile> images) {
-        String filename = "converted_" + UUID.randomUUID() + ".pdf";
-        Path outputPath = Paths.get(tempDir, filename);
+    public ConversionResult convertToPdf(List<MultipartFile> images) {
+        return convertToPdf(images, ConversionOptions.defaults(), NO_PROGRESS);
+    }
 
-        log.info("Iniciando conversão de {} imagens para PDF único", images.size());
-        long startTime = System.currentTimeMillis();
+    /**
+     * Converte múltiplas imagens em um único PDF, notificando o progresso
+     *
+     * @param images   Lista de imagens
+     * @param options  Opções de conversão
+     * @param progress Recebe a quantidade de imagens processadas até o momento
+     * @return Resultado com o caminho do arquivo PDF gerado
+     */
+    public ConversionResult convertToPdf(List<MultipartFile> images, ConversionOptions options,
+                                         IntConsumer progress) {
+        return convertToPdf(images, options, UUID.randomUUID().toString(), progress);
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(outputPath.toFile());
-             PdfWriter writer = new PdfWriter(fos);
-             PdfDocument pdfDoc = new PdfDocument(writer);
-             Document document = new Document(pdfDoc)) {
+    /**
+     * Converte múltiplas imagens em um único PDF, notificando o progresso. As miniaturas das
+     * páginas ficam disponíveis pelo id da conversão à medida que as páginas são gravadas.
+     *
+     * @param images       Lista de imagens
+     * @param options      Opções de conversão
+     * @param conversionId Id da conversão, também usado no nome do arquivo gerado
+     * @param progress     Recebe a quantidade de imagens processadas até o momento
+     * @return Resultado com o caminho do arquivo PDF gerado
+     */
+    public ConversionResult convertToPdf(List<MultipartFile> images, ConversionOptions options,
+                                         String conversionId, IntConsumer progress) {
+        String filename = "converted_" + conversionId + ".pdf";
 
-            int processedCount = 0;
+        // O arquivo só fica disponível no armazenamento após a conclusão; em caso de erro é descartado
+        try (ArtifactStore.Output output = artifactStore.create(filename)) {
+            ConversionResult result = writePdf(images.iterator(), options, conversionId, output.stream(), progress);
+            return result.withPath(output.commit().path());
 
-            for (MultipartFile imageFile : images) {
-                try {
-                    addImageToDocument(document, pdfDoc, imageFile, processedCount > 0);
-                    processedCount++;
+        } catch (IOException e) {
+            throw new ConversionException("Erro ao criar PDF: " + e.getMessage(), e);
+        }
+    }
 
-                    // Log de progresso a cada batch
-                    if (processedCount % batchSize == 0) {
-                        log.debug("Processadas {} de {} imagens", processedCount, images.size());
-                        // Sugestão de garbage collection para liberar memória
-                        System.gc();
-                    }
+    /**
+     * Converte múltiplas imagens em um único PDF, escrevendo diretamente no stream informado.
+     * As páginas são enviadas ao stream à medida que são geradas.
+     *
+     * @param images  Lista de imagens
+     * @param options Opções de conversão
+     * @param output  Stream de destino (é fechado ao final)
+     */
+    public ConversionResult convertToPdf(List<MultipartFile> images, ConversionOptions options,
+                                         OutputStream output) {
+        return convertToPdf(images, options, null, output);
+    }
 
-                } catch (Exception e) {
-                    log.error("Erro ao processar imagem: {}", imageFile.getOriginalFilename(), e);
-                    // Continua processando as demais imagens
+    /**
+     * Converte múltiplas imagens em um único PDF, escrevendo diretamente no stream informado.
+     * As páginas são enviadas ao stream à medida que são geradas.
+     *
+     * @param images       Lista de imagens
+     * @param options      Opções de conversão
+     * @param conversionId Id das miniaturas das páginas (null para não gerar miniaturas)
+     * @param output       Stream de destino (é fechado ao final)
+     */
+    public ConversionResult convertToPdf(List<MultipartFile> images, ConversionOptions options,
+                                         String conversionId, OutputStream output) {
+        return writePdf(images.iterator(), options, conversionId, output, NO_PROGRESS);
+    }
+
+    /**
+     * Converte as imagens em um único PDF à medida que são obtidas da origem,
+     * escrevendo diretamente no stream informado
+     *
+     * @param images       Origem das imagens (por exemplo, um upload ainda em recebimento)
+     * @param options      Opções de conversão
+     * @param conversionId Id das miniaturas das páginas (null para não gerar miniaturas)
+     * @param output       Stream de destino (é fechado ao final)
+     */
+    public ConversionResult convertToPdf(Iterator<MultipartFile> images, ConversionOptions options,
+                                         String conversionId, OutputStream output) {
+        return writePdf(images, options, conversionId, output, NO_PROGRESS);
+    }
+
+    private ConversionResult writePdf(Iterator<MultipartFile> images, ConversionOptions options,
+                                      String conversionId, OutputStream output, IntConsumer progress) {
+        return conversionMetrics.conversion(ConversionType.SINGLE_PDF,
+                () -> writePdfDocument(images, options, conversionId, output, progress));
+    }
+
+    private ConversionResult writePdfDocument(Iterator<MultipartFile> images, ConversionOptions options,
+                                              String conversionId, OutputStream output, IntConsumer progress) {
+        log.info("Iniciando conversão de imagens para PDF único");
+        long startTime = System.currentTimeMillis();
+        AtomicLong bytesIn = new AtomicLong();
+
+        // A escrita na resposta devolve a permissão de CPU: um cliente lento não bloqueia outras conversões
+        AbortableOutputStream target = new AbortableOutputStream(cpuWorkLimiter.releasingOutput(output));
+        CountingOutputStream countingOutput = new CountingOutputStream(target);
+        RepeatedImages repeated = options.getOutputProfile().isSmartMode() ? new RepeatedImages() : null;
+        PageLayout layout = PageLayout.of(options);
+        PageThumbnails thumbnails = thumbnailService.open(conversionId, options);
+        List<ImageResult> results;
+        try (PdfWriter writer = new PdfWriter(countingOutput, writerProperties(options));
+             PdfDocument pdfDoc = new PdfDocument(writer)) {
+            try {
+                // O cache guarda páginas inteiras: com várias imagens por página, as imagens são escritas diretamente
+                if (fragmentCache.isEnabled() && layout.getImagesPerPage() == 1) {
+                    // Páginas geradas (ou obtidas do cache) em paralelo e copiadas na ordem do upload.
+                    // No modo inteligente, o iText grava uma única vez as imagens idênticas copiadas
+                    results = imagePipeline.process(images,
+                            counting(bytesIn, timedDecode(ConversionType.SINGLE_PDF, file -> {
+                                String key = fragmentKey(file, options, layout);
+                                return new Fragment(key,
+                                        getOrRenderFragment(file, key, options, layout, ConversionType.SINGLE_PDF),
+                                        thumbnails != null ? thumbnailService.imageThumbnails(file) : null);
+                            })),
+                            tracked(repeated, Fragment::key,
+                                    measured(writer, fragment -> copyFragment(pdfDoc, fragment, layout, thumbnails))),
+                            progress, options.getFailurePolicy());
+                } else {
+                    // Decodificação e escala em paralelo; escrita sequencial na ordem do upload
+                    SheetWriter sheets = new SheetWriter(pdfDoc, layout, thumbnails);
+                    results = imagePipeline.process(images,
+                            counting(bytesIn, timedDecode(ConversionType.SINGLE_PDF,
+                                    file -> prepareForDocument(file, options, layout, repeated, thumbnails != null))),
+                            tracked(repeated, PreparedImage::contentKey,
+                                    measured(writer, prepared -> writeImage(sheets, pdfDoc, prepared, repeated))),
+                            progress, options.getFailurePolicy());
+                    sheets.finish();
                 }
-            }
 
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("Conversão concluída: {} imagens processadas em {}ms", processedCount, duration);
+                checkResults(results, options, target);
 
-            return outputPath;
+                long duration = System.currentTimeMillis() - startTime;
+                log.info("Conversão concluída: {} imagens processadas em {}ms",
+                        ConversionResult.count(results, ImageStatus.CONVERTED), duration);
+            } catch (Exception e) {
+                // Qualquer falha descarta a saída antes de o documento ser fechado: o cliente nunca
+                // recebe um PDF válido com páginas faltando
+                target.abort();
+                throw e;
+            }
 
+        } catch (ConversionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Erro ao criar PDF", e);
             throw new ConversionException("Erro ao criar PDF: " + e.getMessage(), e);
         }
+
+        return toResult(bytesIn.get(), countingOutput, results, repeated)
+                .withConversionId(thumbnails != null ? conversionId : null);
+    }
+
+    /**
+     * Acrescenta as imagens ao final de um documento aberto (sessões de conversão incremental).
+     * Apenas as novas imagens são processadas: as páginas existentes não são lidas nem reescritas.
+     * <p>
+     * As páginas gravadas permanecem no documento mesmo que a conversão seja rejeitada pela
+     * política de falhas; o resultado de cada imagem indica quais foram acrescentadas.
+     *
+     * Cada chamada começa em uma nova página, mesmo que a última folha (N imagens por página)
+     * não esteja cheia.
+     *
+     * @param pdfDoc       Documento de destino, que permanece aberto
+     * @param images       Lista de imagens
+     * @param options      Opções de conversão
+     * @param conversionId Id das miniaturas das páginas, numeradas a partir das páginas existentes
+     * @return Resultado com os bytes acrescentados ao documento
+     */
+    public ConversionResult appendToPdf(PdfDocument pdfDoc, List<MultipartFile> images, ConversionOptions options,
+                                        String conversionId) {
+        return conversionMetrics.conversion(ConversionType.SINGLE_PDF, () -> {
+            PdfWriter writer = pdfDoc.getWriter();
+            long startPos = writer.getCurrentPos();
+            AtomicLong bytesIn = new AtomicLong();
+            RepeatedImages repeated = options.getOutputProfile().isSmartMode() ? new RepeatedImages() : null;
+            PageLayout layout = PageLayout.of(options);
+            PageThumbnails thumbnails = thumbnailService.open(conversionId, options);
+            SheetWriter sheets = new SheetWriter(pdfDoc, layout, thumbnails);
+
+            List<ImageResult> results;
+            try {
+                results = imagePipeline.process(images,
+                        counting(bytesIn, timedDecode(ConversionType.SINGLE_PDF,
+                                file -> prepareForDocument(file, options, layout, repeated, thumbnails != null))),
+                        tracked(repeated, PreparedImage::contentKey,
+                                measured(writer, prepared -> writeImage(sheets, pdfDoc, prepared, repeated))),
+                        NO_PROGRESS, options.getFailurePolicy());
+                sheets.finish();
+                writer.flush();
+
+            } catch (Exception e) {
+                log.error("Erro ao acrescentar imagens ao PDF", e);
+                throw new ConversionException("Erro ao acrescentar imagens ao PDF: " + e.getMessage(), e);
+            }
+
+            String message = failureMessage(results, options);
+            if (message != null) {
+                log.error(message);
+                throw new ConversionException(message, results);
+            }
+
+            long bytesOut = writer.getCurrentPos() - startPos;
+            log.info("Imagens acrescentadas: {} ({} bytes recebidos, {} bytes gerados)",
+                    ConversionResult.count(results, ImageStatus.CONVERTED), bytesIn.get(), bytesOut);
+            return new ConversionResult(null, bytesIn.get(), bytesOut, results, logSavings(repeated))
+                    .withConversionId(thumbnails != null ? conversionId : null);
+        });
     }
 
     /**
      * Converte cada imagem em um PDF separado e compacta tudo em ZIP
      *
      * @param images Lista de imagens
-     * @return Caminho do arquivo ZIP gerado
+     * @return Resultado com o caminho do arquivo ZIP gerado
      */
-    public Path convertToMultiplePdfsZip(List<MultipartFile> images) {
+    public ConversionResult convertToMultiplePdfsZip(List<MultipartFile> images) {
+        return convertToMultiplePdfsZip(images, ConversionOptions.defaults(), NO_PROGRESS);
+    }
+
+    /**
+     * Converte cada imagem em um PDF separado e compacta tudo em ZIP, notificando o progresso
+     *
+     * @param images   Lista de imagens
+     * @param options  Opções de conversão
+     * @param progress Recebe a quantidade de imagens processadas até o momento
+     * @return Resultado com o caminho do arquivo ZIP gerado
+     */
+    public ConversionResult convertToMultiplePdfsZip(List<MultipartFile> images, ConversionOptions options,
+                                                     IntConsumer progress) {
         String zipFilename = "converted_pdfs_" + UUID.randomUUID() + ".zip";
-        Path zipPath = Paths.get(tempDir, zipFilename);
 
-        log.info("Iniciando conversão de {} imagens para PDFs individuais", images.size());
+        try (ArtifactStore.Output output = artifactStore.create(zipFilename)) {
+            ConversionResult result = writeZip(images.iterator(), options, output.stream(), progress);
+            return result.withPath(output.commit().path());
+
+        } catch (IOException e) {
+            throw new ConversionException("Erro ao criar PDFs múltiplos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Converte cada imagem em um PDF separado e compacta tudo em ZIP,
+     * escrevendo diretamente no stream informado
+     *
+     * @param images  Lista de imagens
+     * @param options Opções de conversão
+     * @param output  Stream de destino (é fechado ao final)
+     */
+    public ConversionResult convertToMultiplePdfsZip(List<MultipartFile> images, ConversionOptions options,
+                                                     OutputStream output) {
+        return writeZip(images.iterator(), options, output, NO_PROGRESS);
+    }
+
+    /**
+     * Converte cada imagem em um PDF separado à medida que são obtidas da origem,
+     * compactando tudo em ZIP diretamente no stream informado
+     *
+     * @param images  Origem das imagens (por exemplo, um upload ainda em recebimento)
+     * @param options Opções de conversão
+     * @param output  Stream de destino (é fechado ao final)
+     */
+    public ConversionResult convertToMultiplePdfsZip(Iterator<MultipartFile> images, ConversionOptions options,
+                                                     OutputStream output) {
+        return writeZip(images, options, output, NO_PROGRESS);
+    }
+
+    private ConversionResult writeZip(Iterator<MultipartFile> images, ConversionOptions options,
+                                      OutputStream output, IntConsumer progress) {
+        return conversionMetrics.conversion(ConversionType.MULTIPLE_PDF_ZIP,
+                () -> writeZipArchive(images, options, output, progress));
+    }
+
+    private ConversionResult writeZipArchive(Iterator<MultipartFile> images, ConversionOptions options,
+                                             OutputStream output, IntConsumer progress) {
+        log.info("Iniciando conversão de imagens para PDFs individuais");
         long startTime = System.currentTimeMillis();
+        AtomicLong bytesIn = new AtomicLong();
+
+        // A escrita na resposta devolve a permissão de CPU: um cliente lento não bloqueia outras conversões
+        AbortableOutputStream target = new AbortableOutputStream(cpuWorkLimiter.releasingOutput(output));
+        CountingOutputStream countingOutput = new CountingOutputStream(target);
+        // Cada imagem gera um PDF próprio: uma imagem por página
+        PageLayout layout = PageLayout.of(options).singleImage();
+        List<ImageResult> results;
+        try (ZipArchiveWriter zip = new ZipArchiveWriter(new BufferedOutputStream(countingOutput))) {
+            try {
+                // PDFs individuais gerados (e comprimidos) em paralelo; gravação no ZIP na ordem do upload
+                results = imagePipeline.process(images,
+                        counting(bytesIn, timedDecode(ConversionType.MULTIPLE_PDF_ZIP,
+                                file -> createSingleImagePdf(file, options, layout))),
+                        (imageFile, entry) -> {
+                            long start = System.nanoTime();
+                            long written = writeZipEntry(zip, entry);
+                            conversionMetrics.record(ConversionMetrics.Stage.ZIP_WRITE, ConversionType.MULTIPLE_PDF_ZIP,
+                                    System.nanoTime() - start);
+                            return written;
+                        },
+                        progress, options.getFailurePolicy());
+
+                checkResults(results, options, target);
+
+                long duration = System.currentTimeMillis() - startTime;
+                log.info("Conversão concluída: {} PDFs criados e compactados em {}ms",
+                        ConversionResult.count(results, ImageStatus.CONVERTED), duration);
+            } catch (Exception e) {
+                // Sem o diretório central o ZIP fica incompleto, e não um arquivo válido com PDFs faltando
+                target.abort();
+                throw e;
+            }
 
-        List<Path> pdfFiles = new ArrayList<>();
+        } catch (ConversionException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Erro ao criar PDFs múltiplos", e);
+            throw new ConversionException("Erro ao criar PDFs múltiplos: " + e.getMessage(), e);
+        }
 
-        try {
-            // Criar PDFs individuais
-            int processedCount = 0;
-            for (MultipartFile imageFile : images) {
-                try {
-                    Path pdfPath = createSingleImagePdf(imageFile);
-                    pdfFiles.add(pdfPath);
-                    processedCount++;
-
-                    if (processedCount % batchSize == 0) {
-                        log.debug("Processadas {} de {} imagens", processedCount, images.size());
-                        System.gc();
-                    }
+        return toResult(bytesIn.get(), countingOutput, results, null);
+    }
 
-                } catch (Exception e) {
-                    log.error("Erro ao processar imagem: {}", imageFile.getOriginalFilename(), e);
-                }
+    /**
+     * Acumula o tamanho de cada imagem submetida ao estágio
+     */
+    private <T> ImagePipeline.Stage<T> counting(AtomicLong bytesIn, ImagePipeline.Stage<T> stage) {
+        return file -> {
+            bytesIn.addAndGet(file.getSize());
+            return stage.prepare(file);
+        };
+    }
+
+    /**
+     * Cronometra o estágio de preparação (decodificação, escala e, no ZIP, a geração do PDF da imagem)
+     */
+    private <T> ImagePipeline.Stage<T> timedDecode(ConversionType type, ImagePipeline.Stage<T> stage) {
+        return file -> {
+            long start = System.nanoTime();
+            try {
+                return stage.prepare(file);
+            } finally {
+                conversionMetrics.record(ConversionMetrics.Stage.DECODE, type, System.nanoTime() - start);
             }
+        };
+    }
 
-            // Criar arquivo ZIP
-            createZipFile(pdfFiles, zipPath);
+    /**
+     * Gravação de uma página no documento
+     */
+    @FunctionalInterface
+    private interface PageWrite<T> {
+        void write(T prepared) throws Exception;
+    }
 
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("Conversão concluída: {} PDFs criados e compactados em {}ms",
-                    pdfFiles.size(), duration);
+    /**
+     * Mede os bytes gerados e os tempos de montagem e gravação por página. O writer é esvaziado
+     * após cada página, o que também envia as páginas ao cliente assim que ficam prontas.
+     */
+    private <T> ImagePipeline.Sink<T> measured(PdfWriter writer, PageWrite<T> write) {
+        return (imageFile, prepared) -> {
+            long before = writer.getCurrentPos();
+            long start = System.nanoTime();
+            write.write(prepared);
+            long written = System.nanoTime();
+            writer.flush();
+            long flushed = System.nanoTime();
+
+            conversionMetrics.record(ConversionMetrics.Stage.LAYOUT, ConversionType.SINGLE_PDF, written - start);
+            conversionMetrics.record(ConversionMetrics.Stage.PDF_WRITE, ConversionType.SINGLE_PDF, flushed - written);
+            return writer.getCurrentPos() - before;
+        };
+    }
 
-            // Limpar arquivos temporários PDF
-            cleanupTempFiles(pdfFiles);
+    /**
+     * Contabiliza os bytes gravados por imagem para medir a economia com imagens repetidas
+     * (apenas no modo inteligente do perfil de saída)
+     */
+    private <T> ImagePipeline.Sink<T> tracked(RepeatedImages repeated, Function<T, String> contentKey,
+                                              ImagePipeline.Sink<T> sink) {
+        if (repeated == null) {
+            return sink;
+        }
+        return (imageFile, prepared) -> {
+            long written = sink.write(imageFile, prepared);
+            repeated.recordWrite(contentKey.apply(prepared), written);
+            return written;
+        };
+    }
 
-            return zipPath;
+    /**
+     * Aplica a política de falhas: a saída é descartada se a conversão foi interrompida
+     * (fail-fast) ou se nenhuma imagem pôde ser convertida
+     */
+    private void checkResults(List<ImageResult> results, ConversionOptions options, AbortableOutputStream target) {
+        String message = failureMessage(results, options);
+        if (message != null) {
+            target.abort();
+            log.error(message);
+            throw new ConversionException(message, results);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao criar PDFs múltiplos", e);
-            cleanupTempFiles(pdfFiles);
-            throw new ConversionException("Erro ao criar PDFs múltiplos: " + e.getMessage(), e);
+    /**
+     * Motivo para rejeitar a conversão conforme a política de falhas
+     *
+     * @return Mensagem de erro, ou null se a conversão deve ser aceita
+     */
+    private String failureMessage(List<ImageResult> results, ConversionOptions options) {
+        ImageResult failed = results.stream()
+                .filter(result -> result.getStatus() == ImageStatus.FAILED)
+                .findFirst()
+                .orElse(null);
+
+        String message = null;
+        if (failed != null && options.getFailurePolicy() == FailurePolicy.FAIL_FAST) {
+            message = String.format("Conversão interrompida: falha na imagem %s (%s)",
+                    failed.getFilename(), failed.getError());
+        } else if (ConversionResult.count(results, ImageStatus.CONVERTED) == 0) {
+            message = "Nenhuma imagem pôde ser convertida";
         }
+        return message;
     }
 
     /**
-     * Adiciona uma imagem ao documento PDF
+     * Monta o resultado da conversão com os bytes recebidos e os bytes gerados
      */
-    private void addImageToDocument(Document document, PdfDocument pdfDoc,
-                                    MultipartFile imageFile, boolean addPageBreak) throws IOException {
+    private ConversionResult toResult(long bytesIn, CountingOutputStream output, List<ImageResult> results,
+                                      RepeatedImages repeated) {
+        long bytesOut = output.getByteCount();
+        log.info("Tamanho: {} bytes recebidos, {} bytes gerados ({}%)", bytesIn, bytesOut,
+                bytesIn > 0 ? bytesOut * 100 / bytesIn : 0);
+        int failed = ConversionResult.count(results, ImageStatus.FAILED);
+        if (failed > 0) {
+            log.warn("{} de {} imagens não foram convertidas", failed, results.size());
+        }
+        return new ConversionResult(null, bytesIn, bytesOut, results, logSavings(repeated));
+    }
 
-        // Adicionar quebra de página se não for a primeira imagem
-        if (addPageBreak) {
-            document.add(new AreaBreak(AreaBreakType.NEXT_PAGE));
+    /**
+     * Registra no log a economia obtida com as imagens repetidas
+     *
+     * @return Bytes economizados (0 fora do modo inteligente)
+     */
+    private long logSavings(RepeatedImages repeated) {
+        if (repeated == null) {
+            return 0;
         }
+        log.info("Perfil compacto: {} imagens repetidas gravadas uma única vez, {} bytes economizados",
+                repeated.getRepeated(), repeated.getBytesSaved());
+        return repeated.getBytesSaved();
+    }
+
+    /**
+     * Propriedades de gravação do PDF conforme o perfil de saída
+     */
+    public WriterProperties writerProperties(ConversionOptions options) {
+        WriterProperties properties = new WriterProperties();
+        OutputProfile profile = options.getOutputProfile();
+        if (profile.isFullCompression()) {
+            properties.setFullCompressionMode(true);
+            properties.setCompressionLevel(compressionLevel);
+        }
+        if (profile.isSmartMode()) {
+            properties.useSmartMode();
+        }
+        return properties;
+    }
 
-        byte[] imageBytes = imageFile.getBytes();
-        Image image = new Image(ImageDataFactory.create(imageBytes));
+    /**
+     * Prepara a imagem para ser escrita no documento. No modo inteligente do perfil de saída,
+     * imagens de página única são identificadas pelo conteúdo para que repetições sejam reaproveitadas.
+     *
+     * @param thumbnails Indica se as miniaturas da imagem devem ser lidas (miniaturas das páginas)
+     */
+    private PreparedImage prepareForDocument(MultipartFile imageFile, ConversionOptions options, PageLayout layout,
+                                             RepeatedImages repeated, boolean thumbnails) throws IOException {
+        PreparedImage prepared = prepareImage(imageFile, options, layout, ConversionType.SINGLE_PDF, thumbnails);
+        if (repeated != null && prepared.pageCount() == 1) {
+            prepared = prepared.withContentKey(fragmentKey(imageFile, options, layout));
+        }
+        // Sem imagem decodificada na preparação, a miniatura é lida do arquivo (com subamostragem)
+        if (thumbnails && prepared.thumbnails() == null) {
+            prepared = prepared.withThumbnails(thumbnailService.imageThumbnails(imageFile));
+        }
+        return prepared;
+    }
 
-        // Ajustar imagem ao tamanho da página (A4)
-        PageSize pageSize = PageSize.A4;
-        float pageWidth = pageSize.getWidth() - 72; // Margem de 36 pontos de cada lado
-        float pageHeight = pageSize.getHeight() - 72;
+    /**
+     * Prepara a imagem para ser adicionada à página.
+     * JPEGs que não precisam ser reamostrados são embutidos sem decodificação: apenas o
+     * cabeçalho é lido, e os bytes são copiados do upload direto para o PDF.
+     * Arquivos validados já trazem o cabeçalho lido na validação, que é reaproveitado.
+     * Não depende do documento, podendo ser executado em paralelo.
+     *
+     * @param thumbnails Indica se a miniatura deve ser gerada a partir da imagem decodificada, quando houver
+     */
+    private PreparedImage prepareImage(MultipartFile imageFile, ConversionOptions options, PageLayout layout,
+                                       ConversionType type, boolean thumbnails) throws IOException {
+        ImageInfo info = ProbedImageFile.infoOf(imageFile);
+
+        if (jpegPassthrough) {
+            JpegHeader header;
+            if (info != null) {
+                header = info.jpegHeader();
+            } else {
+                try (InputStream in = imageFile.getInputStream()) {
+                    header = JpegHeader.read(in);
+                }
+            }
 
-        // Calcular escala mantendo proporção
-        float imageWidth = image.getImageWidth();
-        float imageHeight = image.getImageHeight();
+            if (header != null) {
+                Rectangle cell = layout.cellFor(header.width(), header.height());
+                if (!imageResampler.needsResampling(header.width(), header.height(),
+                        options.getQualityProfile(), cell.getWidth(), cell.getHeight())) {
+                    return PreparedImage.single(pdfDoc -> createJpegXObject(pdfDoc, imageFile, header),
+                            header.width(), header.height());
+                }
+            }
+        }
 
-        float scaleWidth = pageWidth / imageWidth;
-        float scaleHeight = pageHeight / imageHeight;
-        float scale = Math.min(scaleWidth, scaleHeight);
+        return prepareImage(imageFile.getBytes(), options, layout, info, type, thumbnails);
+    }
 
-        image.setWidth(imageWidth * scale);
-        image.setHeight(imageHeight * scale);
+    /**
+     * Decodifica a imagem. Se o perfil de qualidade exigir, a imagem é antes reamostrada
+     * para a área que ocupa na página; nesse caso a imagem reduzida também é usada na miniatura.
+     */
+    private PreparedImage prepareImage(byte[] imageBytes, ConversionOptions options, PageLayout layout,
+                                       ImageInfo info, ConversionType type, boolean thumbnails) throws IOException {
+        // A contagem de quadros já foi obtida na inspeção do upload; só relê a imagem se não houver
+        int frameCount = info != null ? info.frameCount() : ImageFrames.count(imageBytes);
+        if (frameCount > 1) {
+            return prepareFrames(imageBytes, frameCount);
+        }
 
-        // Centralizar imagem
-        image.setHorizontalAlignment(com.itextpdf.layout.properties.HorizontalAlignment.CENTER);
+        // Com as dimensões conhecidas, só lê o cabeçalho de novo se for realmente reamostrar
+        Rectangle cell = info != null ? layout.cellFor(info.width(), info.height()) : layout.maxCell();
+        boolean resample = info == null || imageResampler.needsResampling(info.width(), info.height(),
+                options.getQualityProfile(), cell.getWidth(), cell.getHeight());
+        ImageResampler.Resampled resampled = null;
+        if (resample) {
+            long start = System.nanoTime();
+            resampled = imageResampler.resample(imageBytes, options.getQualityProfile(),
+                    cell.getWidth(), cell.getHeight());
+            conversionMetrics.record(ConversionMetrics.Stage.SCALE, type, System.nanoTime() - start);
+        }
+        ImageData imageData = ImageDataFactory.create(resampled != null ? resampled.bytes() : imageBytes);
 
-        document.add(image);
+        PreparedImage prepared = PreparedImage.single(pdfDoc -> new PdfImageXObject(imageData),
+                imageData.getWidth(), imageData.getHeight());
+        if (thumbnails && resampled != null && resampled.image() != null) {
+            prepared = prepared.withThumbnails(thumbnailService.imageThumbnails(resampled.image(),
+                    resampled.sourceWidth(), resampled.sourceHeight()));
+        }
+        return prepared;
     }
 
     /**
-     * Cria um PDF contendo uma única imagem
+     * Prepara uma imagem com vários quadros (TIFF multipágina, GIF animado): uma página por quadro.
+     * Os quadros são decodificados um de cada vez, durante a escrita, e mantidos na resolução original.
+     * As dimensões de todos os quadros já foram verificadas na validação (limite de megapixels).
      */
-    private Path createSingleImagePdf(MultipartFile imageFile) throws IOException {
-        String originalName = imageFile.getOriginalFilename();
-        String baseName = originalName != null ?
-                originalName.substring(0, originalName.lastIndexOf('.')) : "image";
-        String pdfFilename = baseName + "_" + UUID.randomUUID() + ".pdf";
-        Path outputPath = Paths.get(tempDir, pdfFilename);
+    private PreparedImage prepareFrames(byte[] imageBytes, int frameCount) {
+        return new PreparedImage(frameCount, new PreparedImage.PageSource() {
+            private ImageFrames.FrameReader frames;
+
+            @Override
+            public PreparedImage.Page create(PdfDocument pdfDoc, int index) throws IOException {
+                if (frames == null) {
+                    frames = ImageFrames.open(imageBytes);
+                }
+                ImageData frame = frames.read(index);
+                return new PreparedImage.Page(new PdfImageXObject(frame), frame.getWidth(), frame.getHeight());
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (frames != null) {
+                    frames.close();
+                }
+            }
+        });
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(outputPath.toFile());
-             PdfWriter writer = new PdfWriter(fos);
-             PdfDocument pdfDoc = new PdfDocument(writer);
-             Document document = new Document(pdfDoc)) {
+    /**
+     * Cria o XObject de um JPEG como stream DCTDecode lido diretamente do upload.
+     * O conteúdo só é lido (sem passar por um array em memória) quando o iText grava o stream.
+     */
+    private PdfImageXObject createJpegXObject(PdfDocument pdfDoc, MultipartFile imageFile, JpegHeader header)
+            throws IOException {
+        // O iText não fecha o stream após gravá-lo: fecha automaticamente ao atingir o fim.
+        // A leitura ocorre dentro da escrita da página e devolve a permissão de CPU enquanto aguarda
+        InputStream content = AutoCloseInputStream.builder()
+                .setInputStream(cpuWorkLimiter.releasingInput(imageFile.getInputStream()))
+                .get();
+        PdfStream stream = new PdfStream(pdfDoc, content, CompressionConstants.NO_COMPRESSION);
+        stream.put(PdfName.Type, PdfName.XObject);
+        stream.put(PdfName.Subtype, PdfName.Image);
+        stream.put(PdfName.Width, new PdfNumber(header.width()));
+        stream.put(PdfName.Height, new PdfNumber(header.height()));
+        stream.put(PdfName.ColorSpace, colorSpaceOf(pdfDoc, header));
+        stream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        stream.put(PdfName.Filter, PdfName.DCTDecode);
+        return new PdfImageXObject(stream);
+    }
 
-            addImageToDocument(document, pdfDoc, imageFile, false);
-            return outputPath;
+    /**
+     * Espaço de cor do JPEG embutido: ICCBased quando a imagem traz perfil ICC, senão o dispositivo
+     * correspondente ao número de componentes
+     */
+    private PdfObject colorSpaceOf(PdfDocument pdfDoc, JpegHeader header) {
+        if (header.iccProfile() != null) {
+            IccProfile profile = IccProfile.getInstance(header.iccProfile(), header.components());
+            PdfStream iccStream = PdfCieBasedCs.IccBased.getIccProfileStream(profile);
+            iccStream.makeIndirect(pdfDoc);
+            return new PdfArray(List.of(PdfName.ICCBased, iccStream));
+        }
+        return header.components() == 1 ? PdfName.DeviceGray : PdfName.DeviceRGB;
+    }
 
-        } catch (Exception e) {
-            throw new ConversionException("Erro ao criar PDF individual: " + e.getMessage(), e);
+    /**
+     * Escreve as páginas de uma imagem preparada nas folhas do documento. Deve ser chamado por uma única thread.
+     *
+     * @param repeated Imagens já gravadas no documento, para reaproveitar repetições (null desativa)
+     */
+    private void writeImage(SheetWriter sheets, PdfDocument pdfDoc, PreparedImage prepared,
+                            RepeatedImages repeated) throws IOException {
+        try (PreparedImage.PageSource pages = prepared.pages();
+             ImageThumbnails thumbnails = prepared.thumbnails()) {
+            for (int i = 0; i < prepared.pageCount(); i++) {
+                String key = prepared.contentKey();
+                PreparedImage.Page page = repeated != null && key != null ? repeated.find(key) : null;
+                if (page == null) {
+                    page = pages.create(pdfDoc, i);
+                    if (repeated != null && key != null) {
+                        repeated.register(key, page);
+                    }
+                }
+                ImageThumbnails.Thumbnail thumbnail = thumbnails != null ? thumbnails.get(i) : null;
+                sheets.place(page.xObject(), page.width(), page.height(),
+                        thumbnail != null ? thumbnail.image() : null);
+            }
         }
     }
 
     /**
-     * Cria arquivo ZIP com os PDFs gerados
+     * Cria em memória um PDF contendo uma única imagem, já com o CRC32 e, se configurado,
+     * comprimido para o ZIP (compressão em paralelo)
      */
-    private void createZipFile(List<Path> pdfFiles, Path zipPath) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(zipPath.toFile());
-             ZipOutputStream zos = new ZipOutputStream(fos)) {
+    private PdfEntry createSingleImagePdf(MultipartFile imageFile, ConversionOptions options, PageLayout layout)
+            throws IOException {
+        String key = fragmentCache.isEnabled() ? fragmentKey(imageFile, options, layout) : null;
+        byte[] content = getOrRenderFragment(imageFile, key, options, layout, ConversionType.MULTIPLE_PDF_ZIP);
+
+        byte[] compressed = !storeZipEntries && parallelDeflate
+                ? ZipArchiveWriter.deflate(content, deflateLevel) : null;
+        return new PdfEntry(entryName(imageFile), content, ZipArchiveWriter.crc32(content), compressed);
+    }
 
-            for (Path pdfFile : pdfFiles) {
-                ZipEntry zipEntry = new ZipEntry(pdfFile.getFileName().toString());
-                zos.putNextEntry(zipEntry);
+    /**
+     * Nome do PDF no ZIP a partir do nome original da imagem, sem diretórios nem caracteres
+     * inválidos. Nomes repetidos recebem um sufixo numérico na gravação.
+     */
+    private String entryName(MultipartFile imageFile) {
+        String name = imageFile.getOriginalFilename() != null ? imageFile.getOriginalFilename() : "";
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+
+        name = UNSAFE_NAME_CHARS.matcher(name).replaceAll("_").strip();
+        if (name.length() > MAX_ENTRY_NAME_LENGTH) {
+            name = name.substring(0, MAX_ENTRY_NAME_LENGTH);
+        }
+        return (name.isEmpty() || name.chars().allMatch(c -> c == '.') ? "image" : name) + ".pdf";
+    }
 
-                Files.copy(pdfFile, zos);
-                zos.closeEntry();
+    /**
+     * Identifica a imagem pelo conteúdo e pelos parâmetros que alteram o PDF gerado
+     * (chave do cache de páginas)
+     */
+    private String fragmentKey(MultipartFile imageFile, ConversionOptions options, PageLayout layout)
+            throws IOException {
+        return fragmentCache.key(imageFile,
+                layout.key() + "-" + options.getQualityProfile() + "-" + options.getOutputProfile());
+    }
+
+    /**
+     * Obtém do cache (ou gera) o PDF de página única correspondente à imagem
+     *
+     * @param key Chave da imagem no cache (null para não usar o cache)
+     */
+    private byte[] getOrRenderFragment(MultipartFile imageFile, String key, ConversionOptions options,
+                                       PageLayout layout, ConversionType type) throws IOException {
+        if (key != null) {
+            byte[] cached = fragmentCache.get(key);
+            if (cached != null) {
+                return cached;
             }
+        }
 
-            log.debug("Arquivo ZIP criado com {} arquivos", pdfFiles.size());
+        byte[] fragment = renderFragment(prepareImage(imageFile, options, layout, type, false), options, layout);
+        if (key != null) {
+            fragmentCache.put(key, fragment);
         }
+        return fragment;
     }
 
     /**
-     * Remove arquivos temporários
+     * Gera em memória o PDF de página única de uma imagem preparada
      */
-    private void cleanupTempFiles(List<Path> files) {
-        for (Path file : files) {
-            try {
-                Files.deleteIfExists(file);
-            } catch (IOException e) {
-                log.warn("Não foi possível excluir arquivo temporário: {}", file, e);
+    private byte[] renderFragment(PreparedImage prepared, ConversionOptions options, PageLayout layout) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (PdfWriter writer = new PdfWriter(baos, writerProperties(options));
+             PdfDocument pdfDoc = new PdfDocument(writer)) {
+
+            writeImage(new SheetWriter(pdfDoc, layout), pdfDoc, prepared, null);
+
+        } catch (Exception e) {
+            throw new ConversionException("Erro ao criar PDF individual: " + e.getMessage(), e);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Copia as páginas de um PDF gerado para o documento de destino e as libera da memória.
+     * Deve ser chamado por uma única thread.
+     *
+     * @param thumbnails Miniaturas das páginas do documento (null para não gerar)
+     */
+    private void copyFragment(PdfDocument target, Fragment fragment, PageLayout layout, PageThumbnails thumbnails)
+            throws IOException {
+        try (PdfDocument source = new PdfDocument(new PdfReader(new ByteArrayInputStream(fragment.content())));
+             ImageThumbnails imageThumbnails = fragment.thumbnails()) {
+            int firstPage = target.getNumberOfPages() + 1;
+            source.copyPagesTo(1, source.getNumberOfPages(), target);
+
+            for (int i = firstPage; i <= target.getNumberOfPages(); i++) {
+                target.getPage(i).flush(true);
+                if (thumbnails != null && imageThumbnails != null) {
+                    thumbnails.addPage(i, layout, imageThumbnails.get(i - firstPage));
+                }
             }
         }
     }
 
+    /**
+     * PDF de página única de uma imagem, com a chave que identifica seu conteúdo
+     *
+     * @param thumbnails Miniaturas dos quadros da imagem (null se não geradas)
+     */
+    private record Fragment(String key, byte[] content, ImageThumbnails thumbnails) {
+    }
+
+    /**
+     * Grava um PDF gerado como entrada do ZIP. Deve ser chamado por uma única thread.
+     *
+     * @return Tamanho da entrada gravada (comprimida)
+     */
+    private long writeZipEntry(ZipArchiveWriter zip, PdfEntry entry) throws IOException {
+        // PDFs já são compostos por streams comprimidos: STORED evita comprimir de novo
+        if (storeZipEntries) {
+            return zip.writeStored(entry.name(), entry.content(), entry.crc());
+        }
+
+        byte[] compressed = entry.compressed() != null
+                ? entry.compressed() : ZipArchiveWriter.deflate(entry.content(), deflateLevel);
+        // Entradas que não diminuem com a compressão são armazenadas sem compressão
+        if (compressed.length >= entry.content().length) {
+            return zip.writeStored(entry.name(), entry.content(), entry.crc());
+        }
+        return zip.writeDeflated(entry.name(), compressed, entry.crc(), entry.content().length);
+    }
+
     /**
      * Remove um arquivo específico
      */
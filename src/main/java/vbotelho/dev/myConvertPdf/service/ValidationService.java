@@ -1,13 +1,22 @@
 package vbotelho.dev.myConvertPdf.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.enums.PageFormat;
 import vbotelho.dev.myConvertPdf.service.exception.InvalidUploadException;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageInfo;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageProbe;
+import vbotelho.dev.myConvertPdf.service.upload.ProbedImageFile;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -16,20 +25,40 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ValidationService {
 
+    private final ImageProbe imageProbe;
+
     @Value("${app.upload.max-files}")
     private int maxFiles;
 
     @Value("${app.upload.allowed-extensions}")
     private String allowedExtensionsStr;
 
+    // Limite de pixels por imagem, contra imagens que se expandem demais ao decodificar
+    @Value("${app.upload.max-megapixels:100}")
+    private long maxMegapixels;
+
     private Set<String> allowedExtensions;
 
+    // Formato esperado para cada extensão
+    private static final Map<String, String> FORMAT_BY_EXTENSION = Map.of(
+            "jpg", "jpeg", "jpeg", "jpeg", "png", "png", "gif", "gif",
+            "bmp", "bmp", "tif", "tiff", "tiff", "tiff");
+
+    // Grades de miniaturas suportadas (imagens por página)
+    private static final Set<Integer> ALLOWED_IMAGES_PER_PAGE = Set.of(1, 2, 4, 6);
+
+    // Margem máxima, em pontos (2 polegadas)
+    private static final int MAX_MARGIN = 144;
+
     /**
      * Valida lista de arquivos enviados
+     *
+     * @return Arquivos acompanhados dos metadados lidos do cabeçalho, na mesma ordem
      */
-    public void validateFiles(List<MultipartFile> files) {
+    public List<MultipartFile> validateFiles(List<MultipartFile> files) {
         if (files == null || files.isEmpty()) {
             throw new InvalidUploadException("Nenhum arquivo foi enviado");
         }
@@ -41,26 +70,99 @@ public class ValidationService {
                             maxFiles, files.size()));
         }
 
-        // Inicializar extensões permitidas se necessário
-        if (allowedExtensions == null) {
-            allowedExtensions = Arrays.stream(allowedExtensionsStr.split(","))
-                    .map(String::trim)
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toSet());
-        }
+        initAllowedExtensions();
 
         // Validar cada arquivo
+        List<MultipartFile> validated = new ArrayList<>(files.size());
+        int imageCount = 0;
         for (MultipartFile file : files) {
-            validateFile(file);
+            MultipartFile validatedFile = validateFile(file);
+            imageCount = checkImageCount(imageCount, validatedFile);
+            validated.add(validatedFile);
         }
 
         log.info("Validação concluída: {} arquivos válidos", files.size());
+        return validated;
+    }
+
+    /**
+     * Valida um arquivo recebido por upload em streaming, antes de ser convertido
+     *
+     * @param previousImages Imagens (quadros) dos arquivos já recebidos no upload
+     * @return Arquivo acompanhado dos metadados lidos do cabeçalho
+     */
+    public MultipartFile validateStreamedFile(MultipartFile file, int previousImages) {
+        if (previousImages >= maxFiles) {
+            throw new InvalidUploadException(
+                    String.format("Número máximo de arquivos excedido. Máximo: %d", maxFiles));
+        }
+
+        initAllowedExtensions();
+        MultipartFile validated = validateFile(file);
+        checkImageCount(previousImages, validated);
+        return validated;
+    }
+
+    /**
+     * Quantidade de imagens (quadros) de um arquivo validado
+     */
+    public static int imageCount(MultipartFile validatedFile) {
+        ImageInfo info = ProbedImageFile.infoOf(validatedFile);
+        return info != null ? info.frameCount() : 1;
+    }
+
+    /**
+     * Cada página de TIFF e quadro de GIF é convertido como uma imagem, e conta no limite de imagens
+     *
+     * @return Total de imagens incluindo o arquivo
+     */
+    private int checkImageCount(int previousImages, MultipartFile validatedFile) {
+        int total = previousImages + imageCount(validatedFile);
+        if (total > maxFiles) {
+            throw new InvalidUploadException(
+                    String.format("Número máximo de imagens excedido (cada página de TIFF e quadro de GIF "
+                            + "conta como uma imagem). Máximo: %d", maxFiles));
+        }
+        return total;
+    }
+
+    /**
+     * Valida as opções de layout da conversão
+     */
+    public void validateOptions(ConversionOptions options) {
+        if (!ALLOWED_IMAGES_PER_PAGE.contains(options.getImagesPerPage())) {
+            throw new InvalidUploadException(
+                    String.format("Imagens por página inválido: %d. Permitidos: 1, 2, 4 ou 6",
+                            options.getImagesPerPage()));
+        }
+
+        if (options.getPageFormat() == PageFormat.FIT_IMAGE && options.getImagesPerPage() > 1) {
+            throw new InvalidUploadException("O tamanho FIT_IMAGE aceita apenas uma imagem por página");
+        }
+
+        if (options.getMargin() < 0 || options.getMargin() > MAX_MARGIN) {
+            throw new InvalidUploadException(
+                    String.format("Margem inválida: %d. Deve estar entre 0 e %d pontos",
+                            options.getMargin(), MAX_MARGIN));
+        }
+    }
+
+    /**
+     * Inicializa as extensões permitidas se necessário
+     */
+    private void initAllowedExtensions() {
+        if (allowedExtensions == null) {
+            allowedExtensions = Arrays.stream(allowedExtensionsStr.split(","))
+                    .map(String::trim)
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toSet());
+        }
     }
 
     /**
      * Valida um arquivo individual
      */
-    private void validateFile(MultipartFile file) {
+    private MultipartFile validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new InvalidUploadException("Arquivo vazio detectado");
         }
@@ -86,12 +188,54 @@ public class ValidationService {
                             originalFilename, file.getSize() / (1024.0 * 1024.0)));
         }
 
-        // Validar tipo MIME
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
+        // Validar conteúdo pela assinatura e cabeçalho (o tipo MIME informado pelo cliente não é confiável)
+        ImageInfo info = probe(file);
+        if (!info.format().equals(FORMAT_BY_EXTENSION.get(extension))) {
+            throw new InvalidUploadException(
+                    String.format("Conteúdo do arquivo %s (%s) não corresponde à extensão .%s",
+                            originalFilename, info.format(), extension));
+        }
+
+        // Validar dimensões antes de qualquer decodificação
+        if (info.width() <= 0 || info.height() <= 0) {
+            throw new InvalidUploadException(
+                    String.format("Dimensões inválidas: %s (%dx%d)", originalFilename, info.width(), info.height()));
+        }
+        if (info.pixels() > maxMegapixels * 1_000_000) {
+            throw new InvalidUploadException(
+                    String.format("Imagem muito grande: %s (%dx%d). Máximo: %d megapixels",
+                            originalFilename, info.width(), info.height(), maxMegapixels));
+        }
+        // Os demais quadros também são decodificados: todos precisam respeitar o limite
+        ImageInfo.Frame largest = info.largest();
+        if (largest.pixels() > maxMegapixels * 1_000_000) {
+            throw new InvalidUploadException(
+                    String.format("Imagem muito grande: %s (quadro %d: %dx%d). Máximo: %d megapixels",
+                            originalFilename, largest.index() + 1, largest.width(), largest.height(),
+                            maxMegapixels));
+        }
+
+        return new ProbedImageFile(file, info);
+    }
+
+    /**
+     * Lê formato e dimensões do cabeçalho do arquivo
+     */
+    private ImageInfo probe(MultipartFile file) {
+        ImageInfo info;
+        try {
+            info = imageProbe.probe(file);
+        } catch (IOException e) {
+            throw new InvalidUploadException(
+                    String.format("Não foi possível ler a imagem: %s", file.getOriginalFilename()), e);
+        }
+
+        if (info == null) {
             throw new InvalidUploadException(
-                    String.format("Tipo de arquivo inválido: %s. Esperado: imagem", contentType));
+                    String.format("Conteúdo do arquivo não é uma imagem suportada: %s",
+                            file.getOriginalFilename()));
         }
+        return info;
     }
 
     /**
@@ -0,0 +1,261 @@
+package vbotelho.dev.myConvertPdf.service.admission;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.enums.QualityProfile;
+import vbotelho.dev.myConvertPdf.service.exception.AdmissionRejectedException;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageInfo;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageProbe;
+import vbotelho.dev.myConvertPdf.service.upload.ProbedImageFile;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controle de admissão das conversões por orçamento global de memória.
+ * <p>
+ * A memória de cada requisição é estimada a partir do tamanho das partes, das dimensões
+ * lidas do cabeçalho das imagens e do perfil de qualidade (reamostragem decodifica a imagem). Requisições que não cabem no orçamento aguardam na fila
+ * até o timeout e então são rejeitadas (503 com Retry-After).
+ */
+@Slf4j
+@Service
+public class MemoryAdmissionService {
+
+    private static final long MB = 1024 * 1024;
+
+    // Bytes por pixel de uma imagem decodificada pelo iText (RGBA no pior caso)
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final ImageProbe imageProbe;
+
+    @Value("${app.admission.memory-budget-mb:0}")
+    private long memoryBudgetMb;
+
+    @Value("${app.admission.queue-timeout-ms:10000}")
+    private long queueTimeoutMs;
+
+    @Value("${app.admission.retry-after-seconds:15}")
+    private int retryAfterSeconds;
+
+    @Value("${app.processing.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${app.processing.jpeg-passthrough:true}")
+    private boolean jpegPassthrough;
+
+    // Permissões em MB
+    private Semaphore budget;
+    private int budgetMb;
+
+    public MemoryAdmissionService(ImageProbe imageProbe) {
+        this.imageProbe = imageProbe;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Sem configuração explícita, usa metade do heap máximo
+        long configured = memoryBudgetMb > 0 ? memoryBudgetMb : Runtime.getRuntime().maxMemory() / MB / 2;
+        budgetMb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, configured));
+        budget = new Semaphore(budgetMb, true);
+        log.info("Orçamento de memória para conversões: {} MB", budgetMb);
+    }
+
+    /**
+     * Permissão de execução; deve ser fechada ao final da conversão. Fechar mais de uma vez não tem efeito.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Estima a memória necessária e aguarda espaço no orçamento
+     *
+     * @param profile Perfil de qualidade da conversão
+     * @throws AdmissionRejectedException se não houver espaço até o timeout
+     */
+    public Permit admit(List<MultipartFile> images, QualityProfile profile) {
+        int requiredMb = toMb(estimate(images, profile));
+        acquireMb(requiredMb);
+        return permitFor(requiredMb);
+    }
+
+    /**
+     * Admissão de um job assíncrono: aguarda espaço no orçamento sem o timeout da fila, pois não há
+     * requisição esperando a resposta. Um job maior que o orçamento aguarda o orçamento inteiro.
+     *
+     * @param profile Perfil de qualidade da conversão
+     * @throws AdmissionRejectedException se a thread for interrompida enquanto aguarda
+     */
+    public Permit admitQueued(List<MultipartFile> images, QualityProfile profile) {
+        int requiredMb = toMb(estimate(images, profile));
+        try {
+            budget.acquire(requiredMb);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Conversão interrompida aguardando memória", e);
+        }
+        log.debug("Job admitido: {} MB ({} MB disponíveis)", requiredMb, budget.availablePermits());
+        return permitFor(requiredMb);
+    }
+
+    /**
+     * Admissão de um upload em streaming, cujas imagens ainda não foram recebidas.
+     * Reserva o custo da primeira imagem para cada uma das max-in-flight vagas do pipeline; cada
+     * imagem seguinte deve passar por {@link StreamingPermit#admit(MultipartFile)}, que amplia a
+     * reserva quando a imagem custa mais que as anteriores.
+     *
+     * @param profile Perfil de qualidade da conversão
+     * @throws AdmissionRejectedException se não houver espaço até o timeout
+     */
+    public StreamingPermit admitStreaming(MultipartFile firstImage, QualityProfile profile) {
+        StreamingReservation reservation = new StreamingReservation(profile);
+        reservation.admit(firstImage);
+        return reservation;
+    }
+
+    /**
+     * Permissão de um upload em streaming, ampliada à medida que as imagens chegam
+     */
+    public interface StreamingPermit extends Permit {
+
+        /**
+         * Admite uma imagem recebida, aguardando espaço no orçamento se ela custar mais que as anteriores
+         *
+         * @throws AdmissionRejectedException se não houver espaço até o timeout
+         */
+        void admit(MultipartFile image);
+    }
+
+    private Permit permitFor(int requiredMb) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                budget.release(requiredMb);
+            }
+        };
+    }
+
+    private int toMb(long bytes) {
+        return (int) Math.min(budgetMb, Math.max(1, bytes / MB));
+    }
+
+    private void acquireMb(int requiredMb) {
+        try {
+            if (!budget.tryAcquire(requiredMb, queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Conversão rejeitada: {} MB necessários, {} MB disponíveis", requiredMb,
+                        budget.availablePermits());
+                throw new AdmissionRejectedException("Servidor ocupado. Tente novamente mais tarde");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Conversão interrompida aguardando memória", e);
+        }
+
+        log.debug("Conversão admitida: {} MB ({} MB disponíveis)", requiredMb, budget.availablePermits());
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Estima o pico de memória da conversão. Como o pipeline mantém no máximo max-in-flight
+     * imagens em memória, considera apenas as imagens mais custosas.
+     */
+    long estimate(List<MultipartFile> images, QualityProfile profile) {
+        return images.stream()
+                .map(image -> estimateImage(image, profile))
+                .sorted(Comparator.reverseOrder())
+                .limit(Math.max(1, maxInFlight))
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Reserva de um upload em streaming: o custo da imagem mais cara recebida até o momento,
+     * para cada vaga do pipeline. As imagens são admitidas pela thread que lê o upload.
+     */
+    private final class StreamingReservation implements StreamingPermit {
+
+        private final QualityProfile profile;
+        private final AtomicInteger heldMb = new AtomicInteger();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private long slotBytes;
+
+        private StreamingReservation(QualityProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public void admit(MultipartFile image) {
+            long cost = estimateImage(image, profile);
+            if (cost <= slotBytes) {
+                return;
+            }
+            int extraMb = toMb(cost * Math.max(1, maxInFlight)) - heldMb.get();
+            if (extraMb > 0) {
+                acquireMb(extraMb);
+                heldMb.addAndGet(extraMb);
+                if (released.get()) {
+                    // Fechada durante a espera: devolve o que acabou de ser reservado
+                    releaseHeld();
+                }
+            }
+            slotBytes = cost;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                releaseHeld();
+            }
+        }
+
+        private void releaseHeld() {
+            int mb = heldMb.getAndSet(0);
+            if (mb > 0) {
+                budget.release(mb);
+            }
+        }
+    }
+
+    private long estimateImage(MultipartFile image, QualityProfile profile) {
+        // Bytes do upload mais o PDF individual gerado em memória
+        long cost = image.getSize() * 2;
+
+        try {
+            // Arquivos validados já trazem o cabeçalho lido
+            ImageInfo info = ProbedImageFile.infoOf(image);
+            if (info == null) {
+                info = imageProbe.probe(image);
+            }
+            if (info == null) {
+                return cost;
+            }
+            // Em imagens com vários quadros, o maior quadro é o pico da decodificação
+            long decoded = info.largest().pixels() * BYTES_PER_PIXEL;
+
+            // JPEGs só são decodificados quando o perfil reamostra (ImageIO, no pior caso sem subamostragem);
+            // caso contrário são embutidos por passthrough ou como dados brutos no iText
+            boolean jpeg = info.format().equals("jpeg");
+            if (!jpeg || profile.getTargetDpi() > 0) {
+                cost += decoded;
+            } else if (!jpegPassthrough) {
+                cost += image.getSize();
+            }
+        } catch (IOException e) {
+            log.debug("Não foi possível ler o cabeçalho de {}", image.getOriginalFilename(), e);
+        }
+        return cost;
+    }
+}
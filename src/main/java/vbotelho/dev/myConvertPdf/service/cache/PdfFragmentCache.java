@@ -0,0 +1,241 @@
+package vbotelho.dev.myConvertPdf.service.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.CacheStatsResponse;
+import vbotelho.dev.myConvertPdf.service.store.NodeWorkspace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de PDFs de página única já convertidos, indexado pelo SHA-256 da imagem
+ * e pelos parâmetros de layout.
+ * <p>
+ * Camada em memória LRU limitada por tamanho e camada opcional em disco
+ * (em {@code cache} no diretório de trabalho da instância), também LRU e limitada por tamanho.
+ * <p>
+ * Desativado por padrão: no PDF único, o cache faz cada página ser gerada em um documento
+ * à parte, em memória, e copiada para o destino, anulando a escrita direta das imagens.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PdfFragmentCache {
+
+    private static final long MB = 1024 * 1024;
+
+    private final NodeWorkspace workspace;
+
+    @Value("${app.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cache.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${app.cache.disk-enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${app.cache.max-disk-mb:512}")
+    private long maxDiskMb;
+
+    // LinkedHashMap em ordem de acesso: o primeiro elemento é o menos usado recentemente
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private Path cacheDir;
+
+    @PostConstruct
+    public void init() {
+        cacheDir = workspace.resolve("cache");
+        if (enabled && diskEnabled) {
+            try {
+                // O índice do disco só existe em memória: entradas de execuções anteriores são descartadas
+                FileSystemUtils.deleteRecursively(cacheDir);
+                Files.createDirectories(cacheDir);
+            } catch (IOException e) {
+                log.warn("Não foi possível preparar o diretório de cache: {}", cacheDir, e);
+                diskEnabled = false;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Monta a chave do cache a partir do conteúdo da imagem e do layout utilizado
+     */
+    public String key(MultipartFile imageFile, String layout) throws IOException {
+        try (InputStream in = imageFile.getInputStream()) {
+            // Hash calculado em blocos, sem carregar o arquivo inteiro em memória
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest()) + "-" + layout;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Busca um PDF em cache
+     *
+     * @return Bytes do PDF ou null se não estiver em cache
+     */
+    public byte[] get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        synchronized (this) {
+            byte[] cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        byte[] fromDisk = readFromDisk(key);
+        if (fromDisk != null) {
+            diskHits.incrementAndGet();
+            putInMemory(key, fromDisk);
+            return fromDisk;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Armazena um PDF no cache
+     */
+    public void put(String key, byte[] fragment) {
+        if (!enabled) {
+            return;
+        }
+        putInMemory(key, fragment);
+        writeToDisk(key, fragment);
+    }
+
+    public CacheStatsResponse getStats() {
+        synchronized (this) {
+            return CacheStatsResponse.builder()
+                    .enabled(enabled)
+                    .memoryHits(memoryHits.get())
+                    .diskHits(diskHits.get())
+                    .misses(misses.get())
+                    .memoryEntries(memory.size())
+                    .memoryBytes(memoryBytes)
+                    .diskEntries(disk.size())
+                    .diskBytes(diskBytes)
+                    .build();
+        }
+    }
+
+    private synchronized void putInMemory(String key, byte[] fragment) {
+        long maxBytes = maxMemoryMb * MB;
+        if (fragment.length > maxBytes) {
+            return;
+        }
+
+        byte[] previous = memory.put(key, fragment);
+        memoryBytes += fragment.length - (previous != null ? previous.length : 0);
+
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxBytes && it.hasNext()) {
+            memoryBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (!diskEnabled) {
+            return null;
+        }
+
+        synchronized (this) {
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+
+        try {
+            return Files.readAllBytes(cacheDir.resolve(key + ".pdf"));
+        } catch (IOException e) {
+            // Removido por outro processo (ex.: limpeza do diretório temporário)
+            removeFromDiskIndex(key);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] fragment) {
+        if (!diskEnabled || fragment.length > maxDiskMb * MB) {
+            return;
+        }
+
+        try {
+            // Escrita atômica para que leituras concorrentes nunca vejam um arquivo parcial
+            Path tmp = Files.createTempFile(cacheDir, key, ".tmp");
+            Files.write(tmp, fragment);
+            Files.move(tmp, cacheDir.resolve(key + ".pdf"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Erro ao gravar entrada do cache em disco: {}", key, e);
+            return;
+        }
+
+        synchronized (this) {
+            Long previous = disk.put(key, (long) fragment.length);
+            diskBytes += fragment.length - (previous != null ? previous : 0);
+
+            Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+            while (diskBytes > maxDiskMb * MB && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                diskBytes -= eldest.getValue();
+                it.remove();
+                deleteQuietly(cacheDir.resolve(eldest.getKey() + ".pdf"));
+            }
+        }
+    }
+
+    private synchronized void removeFromDiskIndex(String key) {
+        Long size = disk.remove(key);
+        if (size != null) {
+            diskBytes -= size;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Erro ao remover entrada do cache: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package vbotelho.dev.myConvertPdf.service.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
+import vbotelho.dev.myConvertPdf.service.exception.ConversionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicação de requisições de conversão idênticas (duplo clique, retentativas do cliente).
+ * <p>
+ * A impressão digital da requisição é o SHA-256 dos hashes de cada arquivo, na ordem enviada,
+ * mais o tipo e as opções de conversão. Uma requisição idêntica aguarda a conversão em andamento, ou
+ * reaproveita o resultado se o arquivo gerado ainda estiver em disco.
+ */
+@Slf4j
+@Component
+public class ConversionDeduplicator {
+
+    private record Entry(CompletableFuture<ConversionResult> result, long createdAt) {
+    }
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    @Value("${app.artifacts.retention-minutes:30}")
+    private long retentionMinutes;
+
+    /**
+     * Executa a conversão, ou reaproveita a de uma requisição idêntica
+     *
+     * @param conversion Conversão a executar caso não haja resultado reaproveitável
+     * @return Resultado com o caminho do arquivo gerado
+     */
+    public ConversionResult convert(List<MultipartFile> images, ConversionType conversionType,
+                                    ConversionOptions options, Supplier<ConversionResult> conversion) {
+        String fingerprint = fingerprint(images, conversionType, options);
+        pruneExpired();
+
+        while (true) {
+            CompletableFuture<ConversionResult> ownResult = new CompletableFuture<>();
+            Entry entry = index.compute(fingerprint, (key, existing) ->
+                    isReusable(existing) ? existing : new Entry(ownResult, System.currentTimeMillis()));
+
+            if (entry.result() == ownResult) {
+                return runConversion(fingerprint, entry, conversion);
+            }
+
+            log.info("Requisição duplicada detectada ({}), reaproveitando conversão", fingerprint);
+            ConversionResult result = await(entry.result());
+            if (Files.exists(result.path())) {
+                return result;
+            }
+            // Arquivo removido (pela limpeza ou enquanto aguardava): descarta a entrada e converte novamente
+            index.remove(fingerprint, entry);
+        }
+    }
+
+    private ConversionResult runConversion(String fingerprint, Entry entry, Supplier<ConversionResult> conversion) {
+        try {
+            ConversionResult result = conversion.get();
+            entry.result().complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Falhas (inclusive Error, como OutOfMemoryError) não ficam no índice e liberam quem aguarda:
+            // a próxima tentativa converte novamente
+            index.remove(fingerprint, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private ConversionResult await(CompletableFuture<ConversionResult> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Uma entrada é reaproveitável enquanto está em andamento ou, se concluída com sucesso,
+     * enquanto está dentro do TTL. Chamado dentro de {@code compute}, sem I/O: a existência do
+     * arquivo é verificada fora do lock, em {@link #convert}
+     */
+    private boolean isReusable(Entry entry) {
+        return entry != null && !isExpired(entry) && !entry.result().isCompletedExceptionally();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.createdAt() < System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+    }
+
+    private void pruneExpired() {
+        index.values().removeIf(entry -> entry.result().isDone() && isExpired(entry));
+    }
+
+    /**
+     * Calcula a impressão digital da requisição sem carregar os arquivos inteiros em memória
+     */
+    private String fingerprint(List<MultipartFile> images, ConversionType conversionType,
+                               ConversionOptions options) {
+        try {
+            MessageDigest requestDigest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+
+            for (MultipartFile image : images) {
+                MessageDigest fileDigest = MessageDigest.getInstance("SHA-256");
+                try (InputStream in = image.getInputStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        fileDigest.update(buffer, 0, read);
+                    }
+                }
+                requestDigest.update(fileDigest.digest());
+            }
+            requestDigest.update(conversionType.name().getBytes());
+            requestDigest.update(options.toString().getBytes());
+
+            return HexFormat.of().formatHex(requestDigest.digest());
+
+        } catch (IOException e) {
+            throw new ConversionException("Erro ao ler arquivos enviados: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
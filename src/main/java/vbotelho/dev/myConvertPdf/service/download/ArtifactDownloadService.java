@@ -0,0 +1,282 @@
+package vbotelho.dev.myConvertPdf.service.download;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.service.ArtifactJanitor;
+import vbotelho.dev.myConvertPdf.service.metrics.ConversionMetrics;
+import vbotelho.dev.myConvertPdf.service.store.ArtifactStore;
+import vbotelho.dev.myConvertPdf.service.store.StoredArtifact;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Download dos arquivos gerados, com suporte a retomada e cache do cliente:
+ * <ul>
+ *     <li>ETag pelo SHA-256 do conteúdo, calculado na gravação e lido dos metadados do arquivo, e
+ *     GET condicional (If-None-Match, If-Modified-Since) respondido com 304</li>
+ *     <li>Requisições parciais (Range, com If-Range) respondidas com 206</li>
+ *     <li>Transferência sem cópia pelo espaço do usuário com o sendfile do Tomcat, quando disponível;
+ *     nos demais casos, o arquivo é copiado para a resposta em blocos de tamanho fixo</li>
+ * </ul>
+ * Os arquivos são lidos do {@link ArtifactStore}: com o armazenamento compartilhado, qualquer instância
+ * serve o download. A remoção segue a retenção do {@link ArtifactJanitor}, contada a partir do último acesso.
+ */
+@Slf4j
+@Service
+public class ArtifactDownloadService {
+
+    // Atributos de requisição do Tomcat para envio do arquivo pelo sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Apenas arquivos gerados pelas conversões podem ser baixados
+    private static final Pattern ARTIFACT_NAME = Pattern.compile("converted_[A-Za-z0-9_-]+\\.(pdf|zip)");
+
+    // Intervalo único; múltiplos intervalos são ignorados e o arquivo inteiro é enviado
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final int MAX_CACHED_ETAGS = 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final ArtifactStore artifactStore;
+    private final ConversionMetrics conversionMetrics;
+
+    // ETags calculados de arquivos sem SHA-256 nos metadados, invalidados quando o arquivo muda
+    private final Map<Path, CachedETag> etags = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, CachedETag> eldest) {
+                    return size() > MAX_CACHED_ETAGS;
+                }
+            });
+
+    private record CachedETag(long size, long lastModified, String value) {
+    }
+
+    public ArtifactDownloadService(ArtifactStore artifactStore, ConversionMetrics conversionMetrics) {
+        this.artifactStore = artifactStore;
+        this.conversionMetrics = conversionMetrics;
+    }
+
+    /**
+     * Envia o arquivo gerado, respondendo 200, 206, 304, 404 ou 416 conforme a requisição
+     */
+    public void serve(String filename, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        StoredArtifact artifact = resolve(filename);
+        if (artifact == null) {
+            log.error("Arquivo não encontrado: {}", filename);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path filePath = artifact.path();
+
+        long length = Files.size(filePath);
+        long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+        String etag = etag(artifact, length, lastModified);
+
+        // A remoção do arquivo fica a cargo do ArtifactJanitor (retenção a partir do último acesso)
+        artifactStore.touch(filename);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ConversionType conversionType = filename.endsWith(".zip")
+                ? ConversionType.MULTIPLE_PDF_ZIP : ConversionType.SINGLE_PDF;
+        response.setContentType(conversionType == ConversionType.SINGLE_PDF
+                ? MediaType.APPLICATION_PDF_VALUE : "application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag, lastModified)) {
+            // Intervalos inválidos são ignorados (RFC 9110): o arquivo inteiro é enviado
+            Matcher matcher = BYTE_RANGE.matcher(range.trim());
+            if (matcher.matches() && isValidRange(matcher.group(1), matcher.group(2))) {
+                if (matcher.group(1).isEmpty()) {
+                    // Sufixo: os últimos N bytes
+                    start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Long.parseLong(matcher.group(2)));
+                    }
+                }
+
+                if (start >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        log.info("Download iniciado: {} (bytes {}-{} de {}, gerado pela instância {})", filename, start, end, length,
+                artifact.nodeId().equals(artifactStore.nodeId()) ? "atual" : artifact.nodeId());
+
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // O Tomcat envia o arquivo diretamente do page cache para o socket, após o retorno do controller
+            // (por isso essas transferências não entram no tempo da etapa de download)
+            request.setAttribute(SENDFILE_FILENAME, filePath.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            log.debug("Download de {} enviado pelo sendfile", filename);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            // Cópia pelo espaço do usuário, limitada a um bloco por escrita
+            OutputStream target = response.getOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            long position = start;
+            while (position <= end) {
+                buffer.clear().limit((int) Math.min(COPY_BUFFER_SIZE, end + 1 - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Arquivo menor que o esperado: " + filename);
+                }
+                target.write(buffer.array(), 0, read);
+                position += read;
+            }
+        } finally {
+            conversionMetrics.record(ConversionMetrics.Stage.DOWNLOAD, conversionType, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Localiza o arquivo gerado no armazenamento
+     *
+     * @return Arquivo, ou null se o nome for inválido ou o arquivo não existir
+     */
+    private StoredArtifact resolve(String filename) {
+        if (!ARTIFACT_NAME.matcher(filename).matches()) {
+            return null;
+        }
+        return artifactStore.find(filename);
+    }
+
+    /**
+     * Intervalo bem formado: ao menos uma das posições e, com as duas, a inicial não maior que a final
+     */
+    private boolean isValidRange(String first, String last) {
+        // Posições com mais de 18 dígitos não cabem em um long
+        if (first.length() > 18 || last.length() > 18 || (first.isEmpty() && last.isEmpty())) {
+            return false;
+        }
+        return first.isEmpty() || last.isEmpty() || Long.parseLong(first) <= Long.parseLong(last);
+    }
+
+    /**
+     * GET condicional: o cliente já tem a versão atual do arquivo
+     */
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range: o intervalo só é enviado se o arquivo não mudou desde a cópia parcial do cliente
+     */
+    private boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Exige comparação forte: ETags fracos nunca validam um intervalo
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * ETag forte pelo SHA-256 do conteúdo. Arquivos sem o SHA-256 nos metadados (por exemplo, gravados
+     * por outra versão da aplicação) têm o hash calculado uma vez por versão do arquivo.
+     */
+    private String etag(StoredArtifact artifact, long size, long lastModified) throws IOException {
+        if (!artifact.sha256().isEmpty()) {
+            return "\"" + artifact.sha256() + "\"";
+        }
+
+        Path filePath = artifact.path();
+        CachedETag cached = etags.get(filePath);
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return cached.value();
+        }
+
+        try (InputStream in = Files.newInputStream(filePath)) {
+            // Hash calculado em blocos, sem carregar o arquivo inteiro em memória
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            String value = "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+            etags.put(filePath, new CachedETag(size, lastModified, value));
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
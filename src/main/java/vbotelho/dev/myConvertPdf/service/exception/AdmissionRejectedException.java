@@ -0,0 +1,14 @@
+package vbotelho.dev.myConvertPdf.service.exception;
+
+public class AdmissionRejectedException extends RuntimeException {
+    public AdmissionRejectedException() {
+    }
+
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+
+    public AdmissionRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
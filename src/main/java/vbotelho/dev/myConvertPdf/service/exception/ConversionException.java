@@ -1,14 +1,34 @@
 package vbotelho.dev.myConvertPdf.service.exception;
 
+import vbotelho.dev.myConvertPdf.dto.ImageResult;
+
+import java.util.List;
+
 public class ConversionException extends  RuntimeException{
+
+    // Resultado de cada imagem até a falha, quando disponível
+    private final List<ImageResult> imageResults;
+
     public ConversionException() {
+        this.imageResults = List.of();
     }
 
     public ConversionException(String message) {
         super(message);
+        this.imageResults = List.of();
     }
 
     public ConversionException(String message, Throwable cause) {
         super(message, cause);
+        this.imageResults = List.of();
+    }
+
+    public ConversionException(String message, List<ImageResult> imageResults) {
+        super(message);
+        this.imageResults = List.copyOf(imageResults);
+    }
+
+    public List<ImageResult> getImageResults() {
+        return imageResults;
     }
 }
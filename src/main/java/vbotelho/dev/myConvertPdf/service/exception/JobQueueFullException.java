@@ -0,0 +1,14 @@
+package vbotelho.dev.myConvertPdf.service.exception;
+
+public class JobQueueFullException extends RuntimeException {
+    public JobQueueFullException() {
+    }
+
+    public JobQueueFullException(String message) {
+        super(message);
+    }
+
+    public JobQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package vbotelho.dev.myConvertPdf.service.exception;
+
+public class SessionLimitExceededException extends RuntimeException {
+    public SessionLimitExceededException() {
+    }
+
+    public SessionLimitExceededException(String message) {
+        super(message);
+    }
+
+    public SessionLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package vbotelho.dev.myConvertPdf.service.exception;
+
+public class SessionNotFoundException extends RuntimeException {
+    public SessionNotFoundException() {
+    }
+
+    public SessionNotFoundException(String message) {
+        super(message);
+    }
+
+    public SessionNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,75 @@
+package vbotelho.dev.myConvertPdf.service.job;
+
+import lombok.Getter;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.dto.ImageResult;
+import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.enums.JobStatus;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
+
+import java.util.List;
+
+/**
+ * Estado de uma conversão executada em segundo plano
+ */
+@Getter
+public class ConversionJob {
+
+    private final String id;
+    private final ConversionType conversionType;
+    private final ConversionOptions options;
+    private final int totalImages;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile int processedImages;
+    private volatile ConversionResult result;
+    private volatile String errorMessage;
+    private volatile List<ImageResult> imageResults = List.of();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public ConversionJob(String id, ConversionType conversionType, ConversionOptions options, int totalImages) {
+        this.id = id;
+        this.conversionType = conversionType;
+        this.options = options;
+        this.totalImages = totalImages;
+    }
+
+    void markRunning() {
+        startedAt = System.currentTimeMillis();
+        status = JobStatus.RUNNING;
+    }
+
+    void updateProgress(int processed) {
+        processedImages = processed;
+    }
+
+    void markDone(ConversionResult conversionResult) {
+        result = conversionResult;
+        imageResults = conversionResult.images();
+        finishedAt = System.currentTimeMillis();
+        status = JobStatus.DONE;
+    }
+
+    void markFailed(String message, List<ImageResult> results) {
+        errorMessage = message;
+        imageResults = results;
+        finishedAt = System.currentTimeMillis();
+        status = JobStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.DONE || status == JobStatus.FAILED;
+    }
+
+    /**
+     * Tempo de processamento em ms (até o momento, se ainda em execução)
+     */
+    public long getProcessingTimeMs() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+}
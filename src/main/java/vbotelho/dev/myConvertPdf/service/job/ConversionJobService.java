@@ -0,0 +1,211 @@
+package vbotelho.dev.myConvertPdf.service.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.enums.JobStatus;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
+import vbotelho.dev.myConvertPdf.service.PdfConversionService;
+import vbotelho.dev.myConvertPdf.service.admission.MemoryAdmissionService;
+import vbotelho.dev.myConvertPdf.service.exception.ConversionException;
+import vbotelho.dev.myConvertPdf.service.exception.JobQueueFullException;
+import vbotelho.dev.myConvertPdf.service.metrics.ConversionMetrics;
+import vbotelho.dev.myConvertPdf.service.store.NodeWorkspace;
+import vbotelho.dev.myConvertPdf.service.upload.ProbedImageFile;
+import vbotelho.dev.myConvertPdf.service.upload.StoredImageFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço de conversões assíncronas executadas no taskExecutor
+ */
+@Slf4j
+@Service
+public class ConversionJobService {
+
+    private static final String QUEUE_FULL_MESSAGE = "Fila de conversões cheia. Tente novamente mais tarde";
+
+    private final PdfConversionService pdfConversionService;
+    private final Executor taskExecutor;
+    private final MemoryAdmissionService memoryAdmissionService;
+    private final Path jobsDirectory;
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+
+    // Vagas da fila (workers + capacidade da fila), reservadas antes de copiar os arquivos do job
+    private final Semaphore slots;
+
+    @Value("${app.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    public ConversionJobService(PdfConversionService pdfConversionService,
+                                @Qualifier("taskExecutor") Executor taskExecutor,
+                                MemoryAdmissionService memoryAdmissionService,
+                                ConversionMetrics conversionMetrics,
+                                NodeWorkspace workspace,
+                                @Value("${app.jobs.workers:4}") int workers,
+                                @Value("${app.jobs.queue-capacity:100}") int queueCapacity) {
+        this.pdfConversionService = pdfConversionService;
+        this.taskExecutor = taskExecutor;
+        this.memoryAdmissionService = memoryAdmissionService;
+        this.jobsDirectory = workspace.resolve("jobs");
+        this.slots = new Semaphore(workers + queueCapacity);
+
+        for (ConversionType type : ConversionType.values()) {
+            conversionMetrics.gaugeQueuedJobs(type, () -> countQueuedJobs(type));
+        }
+    }
+
+    /**
+     * Enfileira uma conversão. Os arquivos são copiados para o disco antes de a requisição terminar.
+     * A vaga na fila é reservada antes da cópia, para que uma fila cheia não grave os arquivos à toa.
+     *
+     * @throws JobQueueFullException se a fila de conversões estiver cheia
+     */
+    public ConversionJob submit(List<MultipartFile> images, ConversionType conversionType,
+                                ConversionOptions options) {
+        pruneExpiredJobs();
+
+        if (!slots.tryAcquire()) {
+            throw new JobQueueFullException(QUEUE_FULL_MESSAGE);
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path jobDir = jobsDirectory.resolve(jobId);
+        ConversionJob job = new ConversionJob(jobId, conversionType, options, images.size());
+
+        try {
+            List<MultipartFile> storedImages = storeImages(images, jobDir);
+            jobs.put(jobId, job);
+            taskExecutor.execute(() -> {
+                try {
+                    run(job, storedImages, jobDir);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(jobId, jobDir);
+            throw new JobQueueFullException(QUEUE_FULL_MESSAGE, e);
+        } catch (RuntimeException e) {
+            release(jobId, jobDir);
+            throw e;
+        }
+
+        log.info("Job {} enfileirado: {} arquivos, tipo: {}", jobId, images.size(), conversionType);
+        return job;
+    }
+
+    /**
+     * Busca um job pelo id
+     */
+    public Optional<ConversionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Quantidade de jobs do tipo informado aguardando na fila
+     */
+    private long countQueuedJobs(ConversionType type) {
+        return jobs.values().stream()
+                .filter(job -> job.getConversionType() == type && job.getStatus() == JobStatus.QUEUED)
+                .count();
+    }
+
+    /**
+     * Executa a conversão em uma thread do taskExecutor
+     */
+    private void run(ConversionJob job, List<MultipartFile> images, Path jobDir) {
+        job.markRunning();
+        log.info("Job {} iniciado", job.getId());
+
+        try {
+            ConversionResult result;
+            // O job já está na fila: aguarda memória sem o timeout das requisições síncronas
+            MemoryAdmissionService.Permit permit = memoryAdmissionService.admitQueued(images,
+                    job.getOptions().getQualityProfile());
+            try {
+                // O id do job identifica as miniaturas das páginas, disponíveis durante a conversão
+                result = pdfConversionService.convert(images, job.getConversionType(),
+                        job.getOptions(), job.getId(), job::updateProgress);
+            } finally {
+                permit.close();
+            }
+
+            job.markDone(result);
+            log.info("Job {} concluído em {}ms", job.getId(), job.getProcessingTimeMs());
+
+        } catch (ConversionException e) {
+            log.error("Job {} falhou", job.getId(), e);
+            job.markFailed(e.getMessage(), e.getImageResults());
+
+        } catch (Exception e) {
+            log.error("Job {} falhou", job.getId(), e);
+            job.markFailed(e.getMessage(), List.of());
+
+        } finally {
+            deleteDirectory(jobDir);
+        }
+    }
+
+    /**
+     * Desfaz o enfileiramento de um job que não chegou a ser executado
+     */
+    private void release(String jobId, Path jobDir) {
+        jobs.remove(jobId);
+        deleteDirectory(jobDir);
+        slots.release();
+    }
+
+    /**
+     * Copia os arquivos enviados para o diretório do job
+     */
+    private List<MultipartFile> storeImages(List<MultipartFile> images, Path jobDir) {
+        try {
+            Files.createDirectories(jobDir);
+
+            List<MultipartFile> stored = new ArrayList<>(images.size());
+            for (int i = 0; i < images.size(); i++) {
+                MultipartFile image = images.get(i);
+                // Mantém os metadados da validação junto da cópia
+                stored.add(ProbedImageFile.of(StoredImageFile.copyOf(image, jobDir, i), ProbedImageFile.infoOf(image)));
+            }
+            return stored;
+
+        } catch (IOException e) {
+            throw new ConversionException("Erro ao armazenar arquivos do job: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remove os registros de jobs finalizados há mais tempo que o período de retenção
+     */
+    private void pruneExpiredJobs() {
+        long limit = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < limit);
+    }
+
+    private void deleteDirectory(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            log.warn("Erro ao remover diretório do job: {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package vbotelho.dev.myConvertPdf.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+import vbotelho.dev.myConvertPdf.dto.ImageResult;
+import vbotelho.dev.myConvertPdf.enums.ConversionType;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+import vbotelho.dev.myConvertPdf.service.ArtifactJanitor;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
+import vbotelho.dev.myConvertPdf.service.exception.ConversionException;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Métricas das conversões, expostas pelo actuator (/actuator/metrics e /actuator/prometheus).
+ * <p>
+ * Os timers publicam histogramas para o cálculo de percentis (p99) no Prometheus, e todas as
+ * métricas de conversão são identificadas pelo tipo de conversão (tag {@code type}).
+ */
+@Component
+public class ConversionMetrics {
+
+    private static final String TYPE = "type";
+
+    /**
+     * Etapas cronometradas da conversão
+     */
+    public enum Stage {
+        VALIDATION("validation"),
+        DECODE("decode"),
+        SCALE("scale"),
+        LAYOUT("layout"),
+        PDF_WRITE("pdf-write"),
+        ZIP_WRITE("zip-write"),
+        DOWNLOAD("download");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Map<ConversionType, Timer>> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<ConversionType, AtomicInteger> inFlight = new EnumMap<>(ConversionType.class);
+    private final Map<ConversionType, Counter> bytesIn = new EnumMap<>(ConversionType.class);
+    private final Map<ConversionType, Counter> bytesOut = new EnumMap<>(ConversionType.class);
+    private final Map<ConversionType, Counter> bytesSaved = new EnumMap<>(ConversionType.class);
+
+    public ConversionMetrics(MeterRegistry registry, ArtifactJanitor artifactJanitor) {
+        this.registry = registry;
+
+        for (ConversionType type : ConversionType.values()) {
+            inFlight.put(type, registry.gauge("conversion.in.flight", Tags.of(TYPE, type.name()), new AtomicInteger()));
+
+            bytesIn.put(type, Counter.builder("conversion.bytes.in")
+                    .description("Bytes das imagens recebidas")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tag(TYPE, type.name())
+                    .register(registry));
+            bytesOut.put(type, Counter.builder("conversion.bytes.out")
+                    .description("Bytes gerados pelas conversões")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tag(TYPE, type.name())
+                    .register(registry));
+            bytesSaved.put(type, Counter.builder("conversion.bytes.saved")
+                    .description("Bytes economizados pelo perfil de saída compacto com imagens repetidas")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tag(TYPE, type.name())
+                    .register(registry));
+        }
+
+        for (Stage stage : Stage.values()) {
+            Map<ConversionType, Timer> timers = new EnumMap<>(ConversionType.class);
+            for (ConversionType type : ConversionType.values()) {
+                timers.put(type, Timer.builder("conversion.stage")
+                        .description("Tempo de cada etapa da conversão")
+                        .tag("stage", stage.tag)
+                        .tag(TYPE, type.name())
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            stageTimers.put(stage, timers);
+        }
+
+        // Valor apurado na última limpeza: a coleta da métrica não lista o armazenamento
+        Gauge.builder("conversion.temp.bytes", artifactJanitor, ArtifactJanitor::getRetainedBytes)
+                .description("Bytes dos arquivos gerados retidos, apurados na última limpeza")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    /**
+     * Registra a duração de uma etapa
+     */
+    public void record(Stage stage, ConversionType type, long elapsedNanos) {
+        stageTimers.get(stage).get(type).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Executa e cronometra uma etapa
+     */
+    public <T> T time(Stage stage, ConversionType type, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(stage, type, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Executa uma conversão completa, registrando a duração (por resultado), as imagens por
+     * situação, os bytes recebidos e gerados e a quantidade de conversões em andamento
+     */
+    public ConversionResult conversion(ConversionType type, Supplier<ConversionResult> conversion) {
+        AtomicInteger running = inFlight.get(type);
+        running.incrementAndGet();
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            ConversionResult result = conversion.get();
+            outcome = "success";
+            countImages(type, result.images());
+            bytesIn.get(type).increment(result.bytesIn());
+            bytesOut.get(type).increment(result.bytesOut());
+            bytesSaved.get(type).increment(result.bytesSaved());
+            return result;
+
+        } catch (ConversionException e) {
+            countImages(type, e.getImageResults());
+            throw e;
+
+        } finally {
+            running.decrementAndGet();
+            Timer.builder("conversion.duration")
+                    .description("Tempo total das conversões")
+                    .tag(TYPE, type.name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Registra como gauge a quantidade de jobs aguardando na fila para o tipo de conversão
+     */
+    public void gaugeQueuedJobs(ConversionType type, Supplier<Number> queued) {
+        Gauge.builder("conversion.jobs.queued", queued)
+                .description("Jobs de conversão aguardando na fila")
+                .tag(TYPE, type.name())
+                .register(registry);
+    }
+
+    private void countImages(ConversionType type, List<ImageResult> images) {
+        for (ImageStatus status : ImageStatus.values()) {
+            int count = ConversionResult.count(images, status);
+            if (count > 0) {
+                Counter.builder("conversion.images")
+                        .description("Imagens processadas por situação")
+                        .tag(TYPE, type.name())
+                        .tag("status", status.name())
+                        .register(registry)
+                        .increment(count);
+            }
+        }
+    }
+}
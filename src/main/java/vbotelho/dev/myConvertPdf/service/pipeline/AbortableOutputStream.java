@@ -0,0 +1,45 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import org.apache.commons.io.output.ProxyOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream de saída que pode ser descartado: após {@link #abort()}, nada mais é gravado
+ * (nem o final do PDF/ZIP escrito ao fechar o documento) e o destino não é fechado.
+ * Assim o cliente recebe uma resposta incompleta, e não um arquivo válido com páginas faltando.
+ */
+public class AbortableOutputStream extends ProxyOutputStream {
+
+    private volatile boolean aborted;
+
+    public AbortableOutputStream(OutputStream output) {
+        super(output);
+    }
+
+    public void abort() {
+        aborted = true;
+    }
+
+    @Override
+    protected void beforeWrite(int n) throws IOException {
+        if (aborted) {
+            throw new IOException("Saída descartada");
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!aborted) {
+            super.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!aborted) {
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limita a quantidade de trechos CPU-intensivos (decodificação e escrita iText) executando
+ * ao mesmo tempo. Necessário com threads virtuais, em que o número de threads não é limitado
+ * por um pool; com cpu-permits = 0 utiliza o número de núcleos disponíveis.
+ * <p>
+ * A permissão é devolvida durante operações de I/O bloqueantes feitas pelos streams de
+ * {@link #releasingOutput(OutputStream)} e {@link #releasingInput(InputStream)}: um cliente lento
+ * recebendo o PDF não ocupa uma permissão enquanto a escrita na resposta aguarda.
+ */
+@Component
+public class CpuWorkLimiter {
+
+    // Bytes acumulados entre devoluções da permissão, para não disputá-la a cada escrita pequena
+    private static final int IO_CHUNK_SIZE = 64 * 1024;
+
+    private final Semaphore permits;
+
+    // Indica se a thread atual detém uma permissão
+    private final ThreadLocal<Boolean> holding = ThreadLocal.withInitial(() -> false);
+
+    public CpuWorkLimiter(@Value("${app.processing.cpu-permits:0}") int cpuPermits) {
+        int count = cpuPermits > 0 ? cpuPermits : Runtime.getRuntime().availableProcessors();
+        this.permits = new Semaphore(count, true);
+    }
+
+    /**
+     * Executa a tarefa após obter uma permissão de CPU
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (holding.get()) {
+            return task.call();
+        }
+        permits.acquire();
+        holding.set(true);
+        try {
+            return task.call();
+        } finally {
+            holding.set(false);
+            permits.release();
+        }
+    }
+
+    /**
+     * Stream de saída que devolve a permissão da thread enquanto escreve no destino
+     * (por exemplo, a resposta HTTP). As escritas são agrupadas em blocos.
+     */
+    public OutputStream releasingOutput(OutputStream output) {
+        return new BufferedOutputStream(new FilterOutputStream(output) {
+            @Override
+            public void write(int b) throws IOException {
+                blocking(() -> out.write(b));
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                blocking(() -> out.write(b, off, len));
+            }
+
+            @Override
+            public void flush() throws IOException {
+                blocking(out::flush);
+            }
+
+            @Override
+            public void close() throws IOException {
+                blocking(out::close);
+            }
+        }, IO_CHUNK_SIZE);
+    }
+
+    /**
+     * Stream de entrada que devolve a permissão da thread enquanto lê da origem
+     * (por exemplo, o arquivo do upload). As leituras são agrupadas em blocos.
+     */
+    public InputStream releasingInput(InputStream input) {
+        return new BufferedInputStream(new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                return blocking(() -> in.read());
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return blocking(() -> in.read(b, off, len));
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                return blocking(() -> in.skip(n));
+            }
+
+            @Override
+            public void close() throws IOException {
+                blocking(() -> {
+                    in.close();
+                    return null;
+                });
+            }
+        }, IO_CHUNK_SIZE);
+    }
+
+    /**
+     * Executa uma operação de I/O sem a permissão de CPU da thread, obtendo-a de volta ao final
+     */
+    private <T> T blocking(IoCall<T> call) throws IOException {
+        if (!holding.get()) {
+            return call.call();
+        }
+        holding.set(false);
+        permits.release();
+        try {
+            return call.call();
+        } finally {
+            permits.acquireUninterruptibly();
+            holding.set(true);
+        }
+    }
+
+    private void blocking(IoRun run) throws IOException {
+        blocking(() -> {
+            run.run();
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface IoCall<T> {
+        T call() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IoRun {
+        void run() throws IOException;
+    }
+}
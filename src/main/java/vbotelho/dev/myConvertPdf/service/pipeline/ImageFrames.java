@@ -0,0 +1,117 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.image.TiffImageData;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Leitura quadro a quadro de imagens com vários quadros (TIFF multipágina e GIF animado).
+ * <p>
+ * Apenas o quadro em uso fica decodificado em memória. Páginas de TIFF são lidas pelo iText
+ * ({@link TiffImageData}); quadros de GIF pelo ImageIO, pois o iText decodifica e mantém todos
+ * os quadros anteriores ao solicitado.
+ */
+public final class ImageFrames {
+
+    private static final int SIGNATURE_LENGTH = 8;
+
+    private ImageFrames() {
+    }
+
+    /**
+     * Quantidade de quadros da imagem
+     *
+     * @return Quantidade de quadros; 1 para formatos sem múltiplos quadros
+     */
+    public static int count(byte[] imageBytes) throws IOException {
+        String format = detectFormat(imageBytes);
+        if ("tiff".equals(format)) {
+            return TiffImageData.getNumberOfPages(imageBytes);
+        }
+        if ("gif".equals(format)) {
+            try (GifFrameReader reader = new GifFrameReader(imageBytes)) {
+                return reader.count();
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Abre um leitor dos quadros da imagem. Os quadros devem ser lidos em ordem.
+     */
+    public static FrameReader open(byte[] imageBytes) throws IOException {
+        if ("gif".equals(detectFormat(imageBytes))) {
+            return new GifFrameReader(imageBytes);
+        }
+        // TIFF: cada página é decodificada isoladamente a partir dos bytes do arquivo
+        return new FrameReader() {
+            @Override
+            public ImageData read(int index) {
+                return ImageDataFactory.createTiff(imageBytes, false, index + 1, false);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static String detectFormat(byte[] imageBytes) {
+        return ImageProbe.detectFormat(Arrays.copyOf(imageBytes, Math.min(imageBytes.length, SIGNATURE_LENGTH)));
+    }
+
+    /**
+     * Leitor dos quadros de uma imagem
+     */
+    public interface FrameReader extends Closeable {
+
+        /**
+         * @param index Índice do quadro, a partir de 0
+         */
+        ImageData read(int index) throws IOException;
+    }
+
+    /**
+     * Quadros de GIF lidos pelo ImageIO, que localiza cada quadro sem decodificar os anteriores
+     */
+    private static final class GifFrameReader implements FrameReader {
+
+        private final ImageInputStream input;
+        private final ImageReader reader;
+
+        private GifFrameReader(byte[] imageBytes) throws IOException {
+            input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes));
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+            if (!readers.hasNext()) {
+                input.close();
+                throw new IOException("Leitor de GIF indisponível");
+            }
+            reader = readers.next();
+            reader.setInput(input, false, true);
+        }
+
+        int count() throws IOException {
+            return reader.getNumImages(true);
+        }
+
+        @Override
+        public ImageData read(int index) throws IOException {
+            return ImageDataFactory.create(reader.read(index), null);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.dispose();
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+/**
+ * Metadados de uma imagem obtidos apenas do cabeçalho
+ *
+ * @param format     Formato detectado pela assinatura do arquivo (jpeg, png, gif, bmp, tiff)
+ * @param width      Largura em pixels
+ * @param height     Altura em pixels
+ * @param bitDepth   Bits por pixel, ou 0 se não puder ser determinado pelo cabeçalho
+ * @param jpegHeader Cabeçalho do JPEG quando puder ser embutido sem decodificação, ou null
+ * @param frameCount Quantidade de quadros (páginas de TIFF, quadros de GIF); 1 nos demais formatos
+ * @param largest    Maior quadro da imagem (o próprio quadro 0 em imagens de um só quadro)
+ */
+public record ImageInfo(String format, int width, int height, int bitDepth, JpegHeader jpegHeader,
+                        int frameCount, Frame largest) {
+
+    /**
+     * Imagem de um só quadro
+     */
+    public ImageInfo(String format, int width, int height, int bitDepth, JpegHeader jpegHeader) {
+        this(format, width, height, bitDepth, jpegHeader, 1, new Frame(0, width, height));
+    }
+
+    public long pixels() {
+        return (long) width * height;
+    }
+
+    public String contentType() {
+        return "image/" + format;
+    }
+
+    /**
+     * Dimensões de um quadro, lidas do cabeçalho do quadro
+     *
+     * @param index Índice do quadro, a partir de 0
+     */
+    public record Frame(int index, int width, int height) {
+
+        public long pixels() {
+            return (long) width * height;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ImageResult;
+import vbotelho.dev.myConvertPdf.enums.FailurePolicy;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+/**
+ * Pipeline em estágios para processamento de imagens.
+ * <p>
+ * O estágio de preparação (decodificação, cálculo de escala, etc.) roda em paralelo
+ * no executor de imagens, enquanto um único escritor consome os resultados na ordem
+ * do upload. Apenas {@code max-in-flight} imagens preparadas ficam em memória ao mesmo tempo.
+ */
+@Slf4j
+@Component
+public class ImagePipeline {
+
+    private final Executor imageExecutor;
+    private final CpuWorkLimiter cpuWorkLimiter;
+
+    @Value("${app.processing.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${app.processing.batch-size}")
+    private int batchSize;
+
+    public ImagePipeline(@Qualifier("imageExecutor") Executor imageExecutor, CpuWorkLimiter cpuWorkLimiter) {
+        this.imageExecutor = imageExecutor;
+        this.cpuWorkLimiter = cpuWorkLimiter;
+    }
+
+    /**
+     * Estágio paralelo: transforma o arquivo enviado em um resultado intermediário
+     */
+    @FunctionalInterface
+    public interface Stage<T> {
+        T prepare(MultipartFile file) throws Exception;
+    }
+
+    /**
+     * Estágio escritor: consome os resultados sequencialmente, na ordem do upload
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        /**
+         * @return Bytes gravados na saída para a imagem
+         */
+        long write(MultipartFile file, T prepared) throws Exception;
+    }
+
+    /**
+     * Processa as imagens pelos dois estágios
+     *
+     * @return Resultado de cada imagem, na ordem do upload
+     */
+    public <T> List<ImageResult> process(List<MultipartFile> images, Stage<T> stage, Sink<T> sink) {
+        return process(images, stage, sink, processed -> { }, FailurePolicy.BEST_EFFORT);
+    }
+
+    /**
+     * Processa as imagens pelos dois estágios, notificando o progresso a cada imagem escrita
+     *
+     * @param progress Recebe a quantidade de imagens escritas com sucesso até o momento
+     * @param policy   Comportamento quando uma imagem falha
+     * @return Resultado de cada imagem, na ordem do upload
+     */
+    public <T> List<ImageResult> process(List<MultipartFile> images, Stage<T> stage, Sink<T> sink,
+                                         IntConsumer progress, FailurePolicy policy) {
+        List<ImageResult> results = process(images.iterator(), stage, sink, progress, policy);
+
+        // Imagens não alcançadas após uma interrupção
+        for (MultipartFile image : images.subList(results.size(), images.size())) {
+            results.add(skipped(image));
+        }
+        return results;
+    }
+
+    /**
+     * Processa as imagens à medida que são obtidas da origem (por exemplo, partes de um
+     * upload ainda em recebimento). Enquanto a próxima imagem é obtida, as anteriores
+     * continuam em preparo, e as já preparadas são escritas sem esperar pelas demais.
+     * <p>
+     * Com {@link FailurePolicy#FAIL_FAST}, a primeira falha interrompe o processamento: as imagens
+     * em preparo são canceladas (SKIPPED) e nenhuma outra é obtida da origem.
+     *
+     * @param progress Recebe a quantidade de imagens escritas com sucesso até o momento
+     * @param policy   Comportamento quando uma imagem falha
+     * @return Resultado de cada imagem obtida da origem, na ordem
+     */
+    public <T> List<ImageResult> process(Iterator<MultipartFile> images, Stage<T> stage, Sink<T> sink,
+                                         IntConsumer progress, FailurePolicy policy) {
+        Deque<Pending<T>> window = new ArrayDeque<>();
+        List<ImageResult> results = new ArrayList<>();
+        int processedCount = 0;
+
+        try {
+            while (true) {
+                Pending<T> head = window.peek();
+
+                // Escreve a próxima imagem assim que estiver pronta, antes de obter outras
+                if (head == null || !head.future().isDone()) {
+                    // Mantém no máximo maxInFlight imagens preparadas/em preparo (backpressure)
+                    if (window.size() < Math.max(1, maxInFlight) && images.hasNext()) {
+                        MultipartFile file = images.next();
+                        window.add(new Pending<>(file, submit(stage, file)));
+                        continue;
+                    }
+                    if (head == null) {
+                        break;
+                    }
+                }
+
+                window.poll();
+                ImageResult result = write(head, sink);
+                results.add(result);
+
+                if (result.getStatus() == ImageStatus.CONVERTED) {
+                    processedCount++;
+                    progress.accept(processedCount);
+
+                    // Log de progresso a cada batch
+                    if (processedCount % batchSize == 0) {
+                        log.debug("Processadas {} imagens", processedCount);
+                    }
+                } else if (policy == FailurePolicy.FAIL_FAST) {
+                    log.warn("Conversão interrompida na imagem {} (fail-fast)", result.getFilename());
+                    break;
+                }
+                // Best-effort: continua processando as demais imagens
+            }
+        } finally {
+            // Em caso de interrupção ou falha do escritor ou da origem, descarta o trabalho pendente
+            for (Pending<T> pending : window) {
+                pending.future().cancel(true);
+                results.add(skipped(pending.file()));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Aguarda o preparo da imagem e a grava, medindo os tempos de cada etapa
+     */
+    private <T> ImageResult write(Pending<T> pending, Sink<T> sink) {
+        MultipartFile imageFile = pending.file();
+        ImageResult.ImageResultBuilder result = ImageResult.builder()
+                .filename(imageFile.getOriginalFilename());
+
+        try {
+            Timed<T> prepared = pending.future().join();
+            result.decodeTimeMs(prepared.elapsedMs());
+
+            long start = System.nanoTime();
+            // A permissão cobre a codificação da página; o I/O feito pelo sink a devolve (CpuWorkLimiter)
+            long outputBytes = cpuWorkLimiter.call(() -> sink.write(imageFile, prepared.value()));
+
+            return result.status(ImageStatus.CONVERTED)
+                    .embedTimeMs((System.nanoTime() - start) / 1_000_000)
+                    .outputBytes(outputBytes)
+                    .build();
+
+        } catch (Exception e) {
+            Throwable cause = unwrap(e);
+            log.error("Erro ao processar imagem: {}", imageFile.getOriginalFilename(), cause);
+            return result.status(ImageStatus.FAILED)
+                    .error(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName())
+                    .build();
+        }
+    }
+
+    private <T> CompletableFuture<Timed<T>> submit(Stage<T> stage, MultipartFile file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return cpuWorkLimiter.call(() -> {
+                    long start = System.nanoTime();
+                    T prepared = stage.prepare(file);
+                    return new Timed<>(prepared, (System.nanoTime() - start) / 1_000_000);
+                });
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, imageExecutor);
+    }
+
+    private ImageResult skipped(MultipartFile file) {
+        return ImageResult.builder()
+                .filename(file.getOriginalFilename())
+                .status(ImageStatus.SKIPPED)
+                .build();
+    }
+
+    /**
+     * Imagem submetida ao estágio paralelo, aguardando o escritor
+     */
+    private record Pending<T>(MultipartFile file, CompletableFuture<Timed<T>> future) {
+    }
+
+    /**
+     * Resultado do estágio paralelo com o tempo gasto
+     */
+    private record Timed<T>(T value, long elapsedMs) {
+    }
+
+    private Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
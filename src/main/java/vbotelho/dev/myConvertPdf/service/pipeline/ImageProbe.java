@@ -0,0 +1,147 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Identifica o formato de imagens pela assinatura (magic bytes) e lê dimensões e
+ * profundidade de cor apenas do cabeçalho, sem decodificar os pixels.
+ * <p>
+ * Em TIFF e GIF, lê também o cabeçalho de cada quadro (IFDs do TIFF, descritores do GIF), pois
+ * um quadro seguinte pode ser muito maior que o primeiro.
+ */
+@Component
+public class ImageProbe {
+
+    private static final int SIGNATURE_LENGTH = 8;
+
+    // Quadros examinados no máximo: acima disso a imagem já excede qualquer limite de imagens por requisição
+    private static final int MAX_PROBED_FRAMES = 10_000;
+
+    /**
+     * Obtém os metadados do cabeçalho da imagem
+     *
+     * @return Metadados, ou null se a assinatura não corresponder a um formato suportado
+     */
+    public ImageInfo probe(MultipartFile file) throws IOException {
+        String format;
+        try (InputStream in = file.getInputStream()) {
+            format = detectFormat(in.readNBytes(SIGNATURE_LENGTH));
+        }
+        if (format == null) {
+            return null;
+        }
+
+        // JPEGs que podem ser embutidos diretamente: o cabeçalho já traz tudo o que é necessário
+        if (format.equals("jpeg")) {
+            JpegHeader header;
+            try (InputStream in = file.getInputStream()) {
+                header = JpegHeader.read(in);
+            }
+            if (header != null) {
+                return new ImageInfo(format, header.width(), header.height(), 8 * header.components(), header);
+            }
+        }
+
+        return readHeader(file, format);
+    }
+
+    /**
+     * Identifica o formato pelos primeiros bytes do arquivo
+     *
+     * @return Nome do formato, ou null se não for reconhecido
+     */
+    static String detectFormat(byte[] signature) {
+        if (startsWith(signature, 0xFF, 0xD8, 0xFF)) {
+            return "jpeg";
+        }
+        if (startsWith(signature, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(signature, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(signature, 'B', 'M')) {
+            return "bmp";
+        }
+        if (startsWith(signature, 'I', 'I', 0x2A, 0x00) || startsWith(signature, 'M', 'M', 0x00, 0x2A)) {
+            return "tiff";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lê dimensões e profundidade de cor com o leitor do ImageIO do formato detectado
+     *
+     * @return Metadados, ou null se o cabeçalho for inválido
+     */
+    private ImageInfo readHeader(MultipartFile file, String format) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+        if (!readers.hasNext()) {
+            return null;
+        }
+
+        try (InputStream in = file.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = readers.next();
+            boolean multiFrame = format.equals("tiff") || format.equals("gif");
+            try {
+                // Formatos com vários quadros são percorridos até o fim: o stream precisa permitir busca
+                reader.setInput(input, !multiFrame, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Nem todo leitor informa o tipo sem decodificar (ex.: JPEG CMYK)
+                ImageTypeSpecifier type = reader.getRawImageType(0);
+                int bitDepth = type != null ? type.getColorModel().getPixelSize() : 0;
+
+                if (!multiFrame) {
+                    return new ImageInfo(format, width, height, bitDepth, null);
+                }
+
+                ImageInfo.Frame largest = new ImageInfo.Frame(0, width, height);
+                int frameCount = 1;
+                while (frameCount < MAX_PROBED_FRAMES) {
+                    ImageInfo.Frame frame;
+                    try {
+                        frame = new ImageInfo.Frame(frameCount, reader.getWidth(frameCount),
+                                reader.getHeight(frameCount));
+                    } catch (IndexOutOfBoundsException e) {
+                        break;
+                    }
+                    if (frame.pixels() > largest.pixels()) {
+                        largest = frame;
+                    }
+                    frameCount++;
+                }
+                return new ImageInfo(format, width, height, bitDepth, null, frameCount, largest);
+
+            } catch (IOException | RuntimeException e) {
+                // Cabeçalho corrompido ou truncado
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
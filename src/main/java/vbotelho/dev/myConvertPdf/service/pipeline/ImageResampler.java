@@ -0,0 +1,171 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import vbotelho.dev.myConvertPdf.enums.QualityProfile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Reamostra imagens com resolução acima da necessária para o tamanho que ocupam na página.
+ * <p>
+ * A leitura usa subamostragem do ImageIO, então a imagem original nunca é decodificada
+ * em resolução total. Imagens JPEG (com perdas) são recodificadas em JPEG com a qualidade
+ * do perfil; as demais em PNG. Imagens que o ImageIO não consegue decodificar são mantidas
+ * com os bytes originais.
+ */
+@Slf4j
+@Component
+public class ImageResampler {
+
+    // Margem para não reamostrar imagens que já estão praticamente na resolução alvo
+    private static final double TOLERANCE = 1.10;
+
+    /**
+     * Reamostra a imagem para a resolução do perfil, considerando a área disponível na página
+     *
+     * @return Imagem reamostrada, ou os bytes originais (sem imagem decodificada) se não for necessário
+     */
+    public Resampled resample(byte[] imageBytes, QualityProfile profile, float maxWidthPt, float maxHeightPt)
+            throws IOException {
+        if (profile.getTargetDpi() <= 0) {
+            return Resampled.unchanged(imageBytes);
+        }
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Resampled.unchanged(imageBytes);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                String format = reader.getFormatName().toLowerCase();
+
+                // Dimensões lidas apenas do cabeçalho
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                if (!needsResampling(width, height, profile, maxWidthPt, maxHeightPt)) {
+                    return Resampled.unchanged(imageBytes);
+                }
+
+                float scale = Math.min(maxWidthPt / width, maxHeightPt / height);
+                int targetWidth = (int) Math.ceil(width * scale / 72f * profile.getTargetDpi());
+                int targetHeight = (int) Math.ceil(height * scale / 72f * profile.getTargetDpi());
+
+                // Subamostragem na leitura: decodifica só uma fração dos pixels
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, width / targetWidth);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+                if (decoded == null) {
+                    log.warn("Imagem {} de {}x{} sem conteúdo decodificado, embutida sem reamostrar",
+                            format, width, height);
+                    return Resampled.unchanged(imageBytes);
+                }
+
+                boolean lossy = format.equals("jpeg") || format.equals("jpg");
+                BufferedImage scaled = scale(decoded, targetWidth, targetHeight, lossy);
+
+                byte[] encoded = lossy ? encodeJpeg(scaled, profile.getJpegQuality()) : encodePng(scaled);
+                log.debug("Imagem reamostrada de {}x{} para {}x{} ({} -> {} bytes)",
+                        width, height, targetWidth, targetHeight, imageBytes.length, encoded.length);
+
+                return new Resampled(encoded.length < imageBytes.length ? encoded : imageBytes,
+                        scaled, width, height);
+
+            } catch (IOException | RuntimeException e) {
+                // Imagens que o ImageIO não decodifica (ex.: JPEG CMYK/YCCK em algumas versões, dados
+                // incompletos) são embutidas como enviadas; o iText as lê diretamente
+                log.warn("Imagem não pôde ser decodificada para reamostragem, embutida sem reamostrar: {}",
+                        e.getMessage());
+                return Resampled.unchanged(imageBytes);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Indica se uma imagem com as dimensões informadas excede a resolução do perfil
+     */
+    public boolean needsResampling(int width, int height, QualityProfile profile,
+                                   float maxWidthPt, float maxHeightPt) {
+        if (profile.getTargetDpi() <= 0) {
+            return false;
+        }
+        float scale = Math.min(maxWidthPt / width, maxHeightPt / height);
+        double targetWidth = Math.ceil(width * scale / 72f * profile.getTargetDpi());
+        return width > targetWidth * TOLERANCE;
+    }
+
+    private BufferedImage scale(BufferedImage source, int width, int height, boolean opaque) {
+        int type = opaque || !source.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage target = new BufferedImage(width, height, type);
+
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Resultado da reamostragem
+     *
+     * @param bytes        Bytes a embutir no PDF
+     * @param image        Imagem decodificada e reduzida (null se a imagem não foi reamostrada),
+     *                     reaproveitada nas miniaturas das páginas
+     * @param sourceWidth  Largura original da imagem (pixels, 0 se não lida)
+     * @param sourceHeight Altura original da imagem (pixels, 0 se não lida)
+     */
+    public record Resampled(byte[] bytes, BufferedImage image, int sourceWidth, int sourceHeight) {
+
+        static Resampled unchanged(byte[] imageBytes) {
+            return new Resampled(imageBytes, null, 0, 0);
+        }
+    }
+}
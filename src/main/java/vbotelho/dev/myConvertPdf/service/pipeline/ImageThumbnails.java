@@ -0,0 +1,183 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Miniaturas dos quadros de uma imagem, usadas nas miniaturas das páginas do PDF.
+ * <p>
+ * A leitura usa subamostragem do ImageIO, então a imagem nunca é decodificada em resolução
+ * total. O primeiro quadro é lido na criação (no estágio paralelo de preparação); os demais
+ * quadros (TIFF multipágina, GIF animado) são lidos sob demanda, em ordem, durante a escrita.
+ * Quando a imagem já foi decodificada na preparação (reamostragem), a miniatura é reduzida a
+ * partir dessa imagem, sem nova leitura do arquivo.
+ * Falhas na leitura não interrompem a conversão: a página apenas fica sem miniatura.
+ */
+@Slf4j
+public final class ImageThumbnails implements Closeable {
+
+    private final MultipartFile imageFile;
+    private final int maxSize;
+    private final Thumbnail first;
+
+    // Leitor dos quadros seguintes, aberto apenas se a imagem tiver mais de um quadro
+    private ImageInputStream input;
+    private ImageReader reader;
+
+    private ImageThumbnails(MultipartFile imageFile, int maxSize) {
+        this.imageFile = imageFile;
+        this.maxSize = maxSize;
+        this.first = readFirst();
+    }
+
+    private ImageThumbnails(BufferedImage decoded, int width, int height, int maxSize) {
+        this.imageFile = null;
+        this.maxSize = maxSize;
+        this.first = new Thumbnail(scale(decoded), width, height);
+    }
+
+    /**
+     * Lê a miniatura do primeiro quadro da imagem
+     *
+     * @param maxSize Maior dimensão da miniatura (pixels)
+     */
+    public static ImageThumbnails of(MultipartFile imageFile, int maxSize) {
+        return new ImageThumbnails(imageFile, maxSize);
+    }
+
+    /**
+     * Miniatura de uma imagem de quadro único já decodificada
+     *
+     * @param decoded Imagem decodificada (em qualquer resolução)
+     * @param width   Largura original da imagem (pixels)
+     * @param height  Altura original da imagem (pixels)
+     * @param maxSize Maior dimensão da miniatura (pixels)
+     */
+    public static ImageThumbnails of(BufferedImage decoded, int width, int height, int maxSize) {
+        return new ImageThumbnails(decoded, width, height, maxSize);
+    }
+
+    /**
+     * Miniatura de um quadro. Os quadros devem ser solicitados em ordem.
+     *
+     * @param index Índice do quadro, a partir de 0
+     * @return Miniatura, ou null se o quadro não pôde ser lido
+     */
+    public Thumbnail get(int index) {
+        if (index == 0 || imageFile == null) {
+            return index == 0 ? first : null;
+        }
+        try {
+            if (reader == null) {
+                input = new MemoryCacheImageInputStream(imageFile.getInputStream());
+                reader = openReader(input, false);
+                if (reader == null) {
+                    return null;
+                }
+            }
+            return read(reader, index);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Miniatura do quadro {} de {} indisponível: {}", index, imageFile.getOriginalFilename(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private Thumbnail readFirst() {
+        try (InputStream in = imageFile.getInputStream();
+             ImageInputStream stream = new MemoryCacheImageInputStream(in)) {
+            ImageReader firstReader = openReader(stream, true);
+            if (firstReader == null) {
+                return null;
+            }
+            try {
+                return read(firstReader, 0);
+            } finally {
+                firstReader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Miniatura de {} indisponível: {}", imageFile.getOriginalFilename(), e.getMessage());
+            return null;
+        }
+    }
+
+    private ImageReader openReader(ImageInputStream stream, boolean seekForwardOnly) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader imageReader = readers.next();
+        imageReader.setInput(stream, seekForwardOnly, true);
+        return imageReader;
+    }
+
+    private Thumbnail read(ImageReader imageReader, int index) throws IOException {
+        // Dimensões lidas apenas do cabeçalho do quadro
+        int width = imageReader.getWidth(index);
+        int height = imageReader.getHeight(index);
+
+        // Subamostragem na leitura: decodifica só uma fração dos pixels
+        ImageReadParam param = imageReader.getDefaultReadParam();
+        int subsampling = Math.max(1, Math.max(width, height) / maxSize);
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+        return new Thumbnail(scale(imageReader.read(index, param)), width, height);
+    }
+
+    /**
+     * Reduz a imagem para caber na dimensão máxima, sobre fundo branco (sem transparência)
+     */
+    private BufferedImage scale(BufferedImage source) {
+        float scale = Math.min(1f, (float) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, Math.round(source.getWidth() * scale));
+        int height = Math.max(1, Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.dispose();
+            reader = null;
+        }
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+
+    /**
+     * Miniatura de um quadro
+     *
+     * @param image  Imagem reduzida
+     * @param width  Largura original do quadro (pontos, um por pixel)
+     * @param height Altura original do quadro (pontos, um por pixel)
+     */
+    public record Thumbnail(BufferedImage image, float width, float height) {
+    }
+}
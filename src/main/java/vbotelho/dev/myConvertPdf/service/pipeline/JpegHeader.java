@@ -0,0 +1,165 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import com.itextpdf.io.colors.IccProfile;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cabeçalho de um JPEG, lido sem decodificar a imagem (apenas os marcadores até o SOF)
+ *
+ * @param width      Largura em pixels
+ * @param height     Altura em pixels
+ * @param components Número de componentes de cor (1 = cinza, 3 = YCbCr/RGB)
+ * @param iccProfile Perfil ICC embutido (segmentos APP2), ou null se a imagem não tiver perfil
+ */
+public record JpegHeader(int width, int height, int components, byte[] iccProfile) {
+
+    private static final int SOI = 0xD8;
+    private static final int EOI = 0xD9;
+    private static final int SOS = 0xDA;
+    private static final int APP2 = 0xE2;
+    private static final int APP14 = 0xEE;
+
+    private static final byte[] ICC_PROFILE = "ICC_PROFILE\0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ADOBE = "Adobe".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Lê o cabeçalho de um JPEG que possa ser embutido diretamente no PDF (DCTDecode)
+     *
+     * @return Cabeçalho, ou null se não for um JPEG baseline/progressivo de 8 bits em cinza ou RGB
+     * sem transformação de cor do Adobe e com perfil ICC (se houver) íntegro e compatível
+     */
+    public static JpegHeader read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 8192));
+        byte[][] iccChunks = null;
+
+        if (in.readUnsignedByte() != 0xFF || in.readUnsignedByte() != SOI) {
+            return null;
+        }
+
+        while (true) {
+            if (in.readUnsignedByte() != 0xFF) {
+                return null;
+            }
+            int marker = in.readUnsignedByte();
+            while (marker == 0xFF) {
+                marker = in.readUnsignedByte();
+            }
+
+            // Marcadores sem segmento de dados
+            if ((marker >= 0xD0 && marker <= 0xD7) || marker == 0x01) {
+                continue;
+            }
+            if (marker == EOI || marker == SOS) {
+                return null;
+            }
+
+            int length = in.readUnsignedShort();
+
+            // SOF0 (baseline), SOF1 (sequencial estendido) e SOF2 (progressivo) são suportados pelo DCTDecode
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                if (marker > 0xC2) {
+                    return null;
+                }
+                int precision = in.readUnsignedByte();
+                int height = in.readUnsignedShort();
+                int width = in.readUnsignedShort();
+                int components = in.readUnsignedByte();
+
+                // CMYK (com a inversão do Adobe) e precisões diferentes de 8 bits seguem o caminho normal
+                if (precision != 8 || width == 0 || height == 0 || (components != 1 && components != 3)) {
+                    return null;
+                }
+
+                byte[] iccProfile = null;
+                if (iccChunks != null) {
+                    iccProfile = assemble(iccChunks);
+                    if (iccProfile == null || !matches(iccProfile, components)) {
+                        return null;
+                    }
+                }
+                return new JpegHeader(width, height, components, iccProfile);
+            }
+
+            if (marker == APP2 || marker == APP14) {
+                byte[] segment = in.readNBytes(length - 2);
+                if (segment.length != length - 2) {
+                    return null;
+                }
+                // A transformação de cor do Adobe (RGB sem YCbCr, YCCK) é tratada pelo caminho normal
+                if (marker == APP14 && startsWith(segment, ADOBE)) {
+                    return null;
+                }
+                if (marker == APP2 && startsWith(segment, ICC_PROFILE)) {
+                    iccChunks = addIccChunk(iccChunks, segment);
+                    if (iccChunks == null) {
+                        return null;
+                    }
+                }
+                continue;
+            }
+
+            in.skipNBytes(length - 2);
+        }
+    }
+
+    /**
+     * Guarda um segmento do perfil ICC (identificador, número de sequência a partir de 1, total e dados)
+     *
+     * @return Segmentos lidos até agora, ou null se a numeração for inválida
+     */
+    private static byte[][] addIccChunk(byte[][] chunks, byte[] segment) {
+        int header = ICC_PROFILE.length + 2;
+        if (segment.length < header) {
+            return null;
+        }
+        int sequence = segment[ICC_PROFILE.length] & 0xFF;
+        int count = segment[ICC_PROFILE.length + 1] & 0xFF;
+        if (chunks == null) {
+            chunks = new byte[count][];
+        }
+        if (count != chunks.length || sequence < 1 || sequence > count || chunks[sequence - 1] != null) {
+            return null;
+        }
+        chunks[sequence - 1] = Arrays.copyOfRange(segment, header, segment.length);
+        return chunks;
+    }
+
+    /**
+     * Junta os segmentos do perfil ICC na ordem da numeração
+     *
+     * @return Perfil completo, ou null se faltar algum segmento
+     */
+    private static byte[] assemble(byte[][] chunks) {
+        ByteArrayOutputStream profile = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            if (chunk == null) {
+                return null;
+            }
+            profile.writeBytes(chunk);
+        }
+        return profile.toByteArray();
+    }
+
+    /**
+     * Verifica se o perfil ICC é legível e tem o mesmo número de componentes da imagem
+     */
+    private static boolean matches(byte[] iccProfile, int components) {
+        try {
+            Integer profileComponents = IccProfile.getIccNumberOfComponents(iccProfile);
+            return profileComponents != null && profileComponents == components;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
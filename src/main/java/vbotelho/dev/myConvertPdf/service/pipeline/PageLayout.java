@@ -0,0 +1,158 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.enums.PageFormat;
+import vbotelho.dev.myConvertPdf.enums.PageOrientation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geometria das páginas conforme as opções de layout: tamanho da página, margens e a grade de
+ * células em que as imagens são posicionadas (uma ou mais imagens por página).
+ * <p>
+ * As folhas de tamanho fixo são calculadas uma única vez por conversão; apenas no tamanho
+ * {@link PageFormat#FIT_IMAGE} a folha depende de cada imagem.
+ */
+public final class PageLayout {
+
+    // Maior dimensão de página aceita pelos leitores de PDF (200 polegadas)
+    private static final float MAX_PAGE_SIZE = 14400;
+
+    // Espaço entre as células da grade
+    private static final float GUTTER = 12;
+
+    private final PageFormat format;
+    private final PageOrientation orientation;
+    private final float margin;
+    private final int imagesPerPage;
+
+    // Folhas pré-calculadas (null no tamanho FIT_IMAGE)
+    private final Sheet portrait;
+    private final Sheet landscape;
+
+    private PageLayout(PageFormat format, PageOrientation orientation, float margin, int imagesPerPage) {
+        this.format = format;
+        this.orientation = orientation;
+        this.margin = margin;
+        this.imagesPerPage = imagesPerPage;
+
+        if (format == PageFormat.FIT_IMAGE) {
+            portrait = null;
+            landscape = null;
+        } else {
+            int columns = imagesPerPage <= 2 ? 1 : 2;
+            int rows = imagesPerPage / columns;
+            portrait = grid(format.getWidth(), format.getHeight(), columns, rows);
+            landscape = grid(format.getHeight(), format.getWidth(), rows, columns);
+        }
+    }
+
+    /**
+     * Layout informado nas opções de conversão (já validadas)
+     */
+    public static PageLayout of(ConversionOptions options) {
+        return new PageLayout(options.getPageFormat(), options.getOrientation(), options.getMargin(),
+                options.getImagesPerPage());
+    }
+
+    /**
+     * O mesmo layout com uma imagem por página (PDFs individuais do ZIP)
+     */
+    public PageLayout singleImage() {
+        return imagesPerPage == 1 ? this : new PageLayout(format, orientation, margin, 1);
+    }
+
+    public int getImagesPerPage() {
+        return imagesPerPage;
+    }
+
+    /**
+     * Folha em que a imagem é posicionada quando abre uma nova página
+     *
+     * @param imageWidth  Largura da imagem (pontos)
+     * @param imageHeight Altura da imagem (pontos)
+     */
+    public Sheet sheetFor(float imageWidth, float imageHeight) {
+        if (format == PageFormat.FIT_IMAGE) {
+            // A página acompanha a imagem, reduzida apenas se exceder o tamanho máximo
+            float available = MAX_PAGE_SIZE - 2 * margin;
+            float scale = Math.min(1, Math.min(available / imageWidth, available / imageHeight));
+            return grid(imageWidth * scale + 2 * margin, imageHeight * scale + 2 * margin, 1, 1);
+        }
+        return switch (orientation) {
+            case PORTRAIT -> portrait;
+            case LANDSCAPE -> landscape;
+            case AUTO -> imageWidth > imageHeight ? landscape : portrait;
+        };
+    }
+
+    /**
+     * Área disponível para a imagem na folha em que seria posicionada
+     */
+    public Rectangle cellFor(float imageWidth, float imageHeight) {
+        return sheetFor(imageWidth, imageHeight).cells().get(0);
+    }
+
+    /**
+     * Maior área disponível para uma imagem, usada como limite de reamostragem quando as
+     * dimensões da imagem ainda não são conhecidas
+     */
+    public Rectangle maxCell() {
+        if (format == PageFormat.FIT_IMAGE) {
+            return new Rectangle(MAX_PAGE_SIZE, MAX_PAGE_SIZE);
+        }
+        Rectangle portraitCell = portrait.cells().get(0);
+        Rectangle landscapeCell = landscape.cells().get(0);
+        return new Rectangle(Math.max(portraitCell.getWidth(), landscapeCell.getWidth()),
+                Math.max(portraitCell.getHeight(), landscapeCell.getHeight()));
+    }
+
+    /**
+     * Área ocupada pela imagem na célula: reduzida (ou ampliada) para caber mantendo a proporção,
+     * centralizada na horizontal e alinhada ao topo
+     *
+     * @param width  Largura da imagem (pontos)
+     * @param height Altura da imagem (pontos)
+     */
+    public static Rectangle fit(Rectangle cell, float width, float height) {
+        float scale = Math.min(cell.getWidth() / width, cell.getHeight() / height);
+        float scaledWidth = width * scale;
+        float scaledHeight = height * scale;
+        return new Rectangle(cell.getX() + (cell.getWidth() - scaledWidth) / 2, cell.getTop() - scaledHeight,
+                scaledWidth, scaledHeight);
+    }
+
+    /**
+     * Identifica o layout na chave do cache de páginas
+     */
+    public String key() {
+        return format + "-" + orientation + "-m" + (int) margin + "-n" + imagesPerPage;
+    }
+
+    private Sheet grid(float pageWidth, float pageHeight, int columns, int rows) {
+        float cellWidth = (pageWidth - 2 * margin - (columns - 1) * GUTTER) / columns;
+        float cellHeight = (pageHeight - 2 * margin - (rows - 1) * GUTTER) / rows;
+
+        // Células da esquerda para a direita, de cima para baixo
+        List<Rectangle> cells = new ArrayList<>(columns * rows);
+        for (int row = 0; row < rows; row++) {
+            float y = pageHeight - margin - (row + 1) * cellHeight - row * GUTTER;
+            for (int column = 0; column < columns; column++) {
+                float x = margin + column * (cellWidth + GUTTER);
+                cells.add(new Rectangle(x, y, cellWidth, cellHeight));
+            }
+        }
+        return new Sheet(new Rectangle(pageWidth, pageHeight), List.copyOf(cells));
+    }
+
+    /**
+     * Página e suas células
+     *
+     * @param pageSize Tamanho da página
+     * @param cells    Área de cada imagem, na ordem de preenchimento
+     */
+    public record Sheet(Rectangle pageSize, List<Rectangle> cells) {
+    }
+}
@@ -0,0 +1,110 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import com.itextpdf.kernel.geom.Rectangle;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Monta a miniatura de cada página a partir das miniaturas das imagens, nas mesmas posições
+ * em que as imagens são escritas no PDF (o PDF nunca é rasterizado).
+ * <p>
+ * Deve ser usado por uma única thread.
+ */
+public class PageThumbnails {
+
+    private final int maxSize;
+    private final PageConsumer consumer;
+
+    private int pageNumber;
+    private float scale;
+    private float pageHeight;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private boolean drawn;
+
+    /**
+     * @param maxSize  Maior dimensão da miniatura da página (pixels)
+     * @param consumer Recebe cada miniatura de página concluída
+     */
+    public PageThumbnails(int maxSize, PageConsumer consumer) {
+        this.maxSize = maxSize;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Inicia a miniatura de uma nova página, finalizando a anterior
+     *
+     * @param pageNumber Número da página no documento, a partir de 1
+     * @param pageSize   Tamanho da página (pontos)
+     */
+    public void startPage(int pageNumber, Rectangle pageSize) {
+        finishPage();
+        this.pageNumber = pageNumber;
+        scale = maxSize / Math.max(pageSize.getWidth(), pageSize.getHeight());
+        pageHeight = pageSize.getHeight();
+
+        image = new BufferedImage(Math.max(1, Math.round(pageSize.getWidth() * scale)),
+                Math.max(1, Math.round(pageSize.getHeight() * scale)), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        drawn = false;
+    }
+
+    /**
+     * Desenha a miniatura de uma imagem na página atual
+     *
+     * @param area      Área ocupada pela imagem na página (pontos, origem no canto inferior esquerdo)
+     * @param thumbnail Miniatura da imagem (null se indisponível)
+     */
+    public void draw(Rectangle area, BufferedImage thumbnail) {
+        if (graphics == null || thumbnail == null) {
+            return;
+        }
+        graphics.drawImage(thumbnail, Math.round(area.getX() * scale), Math.round((pageHeight - area.getTop()) * scale),
+                Math.max(1, Math.round(area.getWidth() * scale)), Math.max(1, Math.round(area.getHeight() * scale)),
+                null);
+        drawn = true;
+    }
+
+    /**
+     * Adiciona a miniatura de uma página com uma única imagem, posicionada conforme o layout
+     * (páginas copiadas do cache de páginas)
+     */
+    public void addPage(int pageNumber, PageLayout layout, ImageThumbnails.Thumbnail thumbnail) {
+        if (thumbnail == null) {
+            return;
+        }
+        PageLayout.Sheet sheet = layout.sheetFor(thumbnail.width(), thumbnail.height());
+        startPage(pageNumber, sheet.pageSize());
+        draw(PageLayout.fit(sheet.cells().get(0), thumbnail.width(), thumbnail.height()), thumbnail.image());
+        finishPage();
+    }
+
+    /**
+     * Conclui a miniatura da página atual. Páginas sem nenhuma imagem desenhada são descartadas.
+     */
+    public void finishPage() {
+        if (graphics == null) {
+            return;
+        }
+        graphics.dispose();
+        graphics = null;
+        if (drawn) {
+            consumer.accept(pageNumber, image);
+        }
+        image = null;
+    }
+
+    /**
+     * Destino das miniaturas de página concluídas
+     */
+    @FunctionalInterface
+    public interface PageConsumer {
+        void accept(int pageNumber, BufferedImage thumbnail);
+    }
+}
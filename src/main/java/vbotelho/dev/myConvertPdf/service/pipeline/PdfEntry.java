@@ -0,0 +1,12 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+/**
+ * PDF individual gerado em memória, pronto para ser gravado no ZIP
+ *
+ * @param name       Nome da entrada no ZIP (tornado único na gravação)
+ * @param content    Bytes do PDF
+ * @param crc        CRC32 do conteúdo
+ * @param compressed Conteúdo já comprimido (deflate), ou null se ainda não comprimido
+ */
+public record PdfEntry(String name, byte[] content, long crc, byte[] compressed) {
+}
@@ -0,0 +1,76 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+
+import java.io.IOException;
+
+/**
+ * Imagem já decodificada e dimensionada, pronta para ser adicionada ao documento.
+ * Imagens com vários quadros (TIFF multipágina, GIF animado) geram uma página por quadro.
+ *
+ * @param pageCount  Quantidade de páginas geradas pela imagem
+ * @param pages      Cria as páginas no documento de destino
+ * @param contentKey Identifica o conteúdo da imagem para reaproveitar repetições (null se não calculado)
+ * @param thumbnails Miniaturas dos quadros da imagem (null se não geradas)
+ */
+public record PreparedImage(int pageCount, PageSource pages, String contentKey, ImageThumbnails thumbnails) {
+
+    public PreparedImage(int pageCount, PageSource pages) {
+        this(pageCount, pages, null, null);
+    }
+
+    public PreparedImage withContentKey(String key) {
+        return new PreparedImage(pageCount, pages, key, thumbnails);
+    }
+
+    public PreparedImage withThumbnails(ImageThumbnails imageThumbnails) {
+        return new PreparedImage(pageCount, pages, contentKey, imageThumbnails);
+    }
+
+    /**
+     * Imagem de página única
+     *
+     * @param source Cria o XObject da imagem no documento de destino
+     * @param width  Largura da imagem (pontos)
+     * @param height Altura da imagem (pontos)
+     */
+    public static PreparedImage single(XObjectSource source, float width, float height) {
+        return new PreparedImage(1, (pdfDoc, index) -> new Page(source.create(pdfDoc), width, height));
+    }
+
+    /**
+     * Origem do XObject da imagem: dados já decodificados ou bytes copiados diretamente do upload
+     */
+    @FunctionalInterface
+    public interface XObjectSource {
+        PdfImageXObject create(PdfDocument pdfDoc) throws IOException;
+    }
+
+    /**
+     * Origem das páginas. As páginas são criadas em ordem, uma de cada vez, durante a escrita,
+     * e a origem é fechada ao final (também em caso de erro).
+     */
+    @FunctionalInterface
+    public interface PageSource extends AutoCloseable {
+
+        /**
+         * @param index Índice da página, a partir de 0
+         */
+        Page create(PdfDocument pdfDoc, int index) throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * Página pronta para ser escrita. A imagem é ajustada à área da página no momento da escrita.
+     *
+     * @param xObject Imagem da página
+     * @param width   Largura da imagem (pontos, um por pixel)
+     * @param height  Altura da imagem (pontos, um por pixel)
+     */
+    public record Page(PdfImageXObject xObject, float width, float height) {
+    }
+}
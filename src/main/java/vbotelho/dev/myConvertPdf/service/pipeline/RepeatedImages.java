@@ -0,0 +1,62 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Imagens já gravadas em um documento, para o modo inteligente do perfil de saída: uma imagem
+ * repetida (mesmo conteúdo) é referenciada pelas páginas seguintes em vez de ser gravada de novo.
+ * <p>
+ * Também contabiliza a economia: em cada repetição, a diferença entre os bytes gravados na
+ * primeira ocorrência e os gravados na repetição. Usado apenas pela thread de escrita.
+ */
+public class RepeatedImages {
+
+    private final Map<String, PreparedImage.Page> pages = new HashMap<>();
+    private final Map<String, Long> writtenBytes = new HashMap<>();
+    private int repeated;
+    private long bytesSaved;
+
+    /**
+     * Página já gravada com a mesma imagem
+     *
+     * @return Página com o XObject gravado, ou null se a imagem ainda não apareceu no documento
+     */
+    public PreparedImage.Page find(String contentKey) {
+        return pages.get(contentKey);
+    }
+
+    public void register(String contentKey, PreparedImage.Page page) {
+        pages.putIfAbsent(contentKey, page);
+    }
+
+    /**
+     * Registra os bytes gravados para uma imagem
+     *
+     * @param contentKey Identificação do conteúdo da imagem (null se não for comparável)
+     */
+    public void recordWrite(String contentKey, long bytes) {
+        if (contentKey == null) {
+            return;
+        }
+        Long first = writtenBytes.putIfAbsent(contentKey, bytes);
+        if (first != null) {
+            repeated++;
+            bytesSaved += Math.max(0, first - bytes);
+        }
+    }
+
+    /**
+     * Quantidade de imagens repetidas encontradas
+     */
+    public int getRepeated() {
+        return repeated;
+    }
+
+    /**
+     * Bytes que deixaram de ser gravados pelas repetições
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+}
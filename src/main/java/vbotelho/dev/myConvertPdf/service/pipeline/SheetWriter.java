@@ -0,0 +1,93 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Escreve as imagens nas células das folhas do layout, abrindo uma nova página quando a folha
+ * atual está cheia. Cada imagem é reduzida (ou ampliada) para caber na célula mantendo a
+ * proporção, centralizada na horizontal e alinhada ao topo.
+ * <p>
+ * Opcionalmente monta, junto com cada página, a sua miniatura.
+ * <p>
+ * Deve ser usado por uma única thread. Cada escritor começa em uma nova página.
+ */
+public class SheetWriter {
+
+    private final PdfDocument pdfDoc;
+    private final PageLayout layout;
+    private final PageThumbnails thumbnails;
+
+    private PageLayout.Sheet sheet;
+    private PdfPage page;
+    private PdfCanvas canvas;
+    private int nextCell;
+
+    public SheetWriter(PdfDocument pdfDoc, PageLayout layout) {
+        this(pdfDoc, layout, null);
+    }
+
+    /**
+     * @param thumbnails Miniaturas das páginas escritas (null para não gerar)
+     */
+    public SheetWriter(PdfDocument pdfDoc, PageLayout layout, PageThumbnails thumbnails) {
+        this.pdfDoc = pdfDoc;
+        this.layout = layout;
+        this.thumbnails = thumbnails;
+    }
+
+    /**
+     * Posiciona a imagem na próxima célula livre
+     *
+     * @param width     Largura da imagem (pontos)
+     * @param height    Altura da imagem (pontos)
+     * @param thumbnail Miniatura da imagem, desenhada na miniatura da página (null se indisponível)
+     */
+    public void place(PdfImageXObject xObject, float width, float height, BufferedImage thumbnail) {
+        if (page == null) {
+            // A orientação da folha é definida pela primeira imagem da página
+            sheet = layout.sheetFor(width, height);
+            page = pdfDoc.addNewPage(new PageSize(sheet.pageSize()));
+            canvas = new PdfCanvas(page);
+            nextCell = 0;
+            if (thumbnails != null) {
+                thumbnails.startPage(pdfDoc.getNumberOfPages(), sheet.pageSize());
+            }
+        }
+
+        Rectangle area = PageLayout.fit(sheet.cells().get(nextCell++), width, height);
+        canvas.addXObjectFittedIntoRectangle(xObject, area);
+        if (thumbnails != null) {
+            thumbnails.draw(area, thumbnail);
+        }
+
+        // Grava a imagem imediatamente e libera seus buffers, sem esperar a página ser finalizada
+        xObject.makeIndirect(pdfDoc);
+        xObject.flush();
+
+        if (nextCell == sheet.cells().size()) {
+            finish();
+        }
+    }
+
+    /**
+     * Finaliza a página atual, mesmo que a folha não esteja cheia, gravando-a no documento
+     */
+    public void finish() {
+        if (page != null) {
+            canvas.release();
+            page.flush();
+            page = null;
+            canvas = null;
+            if (thumbnails != null) {
+                thumbnails.finishPage();
+            }
+        }
+    }
+}
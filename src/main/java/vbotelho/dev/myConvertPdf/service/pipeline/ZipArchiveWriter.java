@@ -0,0 +1,257 @@
+package vbotelho.dev.myConvertPdf.service.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Grava um ZIP cujas entradas já chegam prontas: armazenadas (STORED) ou já comprimidas
+ * (DEFLATED), com CRC32 e tamanhos calculados previamente. Assim a compressão pode ser feita
+ * em paralelo, no estágio de preparação, e a gravação sequencial apenas copia os bytes.
+ * <p>
+ * Usa as extensões ZIP64 quando o arquivo passa de 4 GB ou de 65535 entradas. Os nomes das
+ * entradas são únicos no arquivo (sem diferenciar maiúsculas e minúsculas): repetições
+ * recebem um sufixo numérico.
+ * <p>
+ * Deve ser usado por uma única thread.
+ */
+public class ZipArchiveWriter implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final short ZIP64_EXTRA = 0x0001;
+
+    private static final short VERSION = 20;
+    private static final short VERSION_ZIP64 = 45;
+    // Nomes das entradas em UTF-8
+    private static final short FLAG_UTF8 = 0x0800;
+    private static final short STORED = 0;
+    private static final short DEFLATED = 8;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    private final OutputStream output;
+    private final int dosTime;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    // Próximo sufixo a tentar para cada nome repetido
+    private final Map<String, Integer> nextSuffix = new HashMap<>();
+    private long position;
+
+    public ZipArchiveWriter(OutputStream output) {
+        this.output = output;
+        this.dosTime = dosTime(LocalDateTime.now());
+    }
+
+    /**
+     * Comprime o conteúdo de uma entrada (deflate sem cabeçalho, como no formato ZIP).
+     * Não depende do arquivo, podendo ser executado em paralelo.
+     */
+    public static byte[] deflate(byte[] content, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static long crc32(byte[] content) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        return crc32.getValue();
+    }
+
+    /**
+     * Grava uma entrada sem compressão
+     *
+     * @return Tamanho da entrada gravada (cabeçalho e conteúdo)
+     */
+    public long writeStored(String name, byte[] content, long crc) throws IOException {
+        return write(name, STORED, content, crc, content.length);
+    }
+
+    /**
+     * Grava uma entrada já comprimida por {@link #deflate(byte[], int)}
+     *
+     * @param size Tamanho do conteúdo original
+     * @return Tamanho da entrada gravada (cabeçalho e conteúdo)
+     */
+    public long writeDeflated(String name, byte[] compressed, long crc, long size) throws IOException {
+        return write(name, DEFLATED, compressed, crc, size);
+    }
+
+    private long write(String name, short method, byte[] data, long crc, long size) throws IOException {
+        byte[] nameBytes = uniqueName(name).getBytes(StandardCharsets.UTF_8);
+        long offset = position;
+
+        // Cada entrada está em memória (menos de 2 GB): os tamanhos sempre cabem no cabeçalho local
+        ByteBuffer header = buffer(30 + nameBytes.length);
+        header.putInt(LOCAL_HEADER)
+                .putShort(VERSION)
+                .putShort(FLAG_UTF8)
+                .putShort(method)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt(data.length)
+                .putInt((int) size)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes);
+        writeBuffer(header);
+        output.write(data);
+        position += data.length;
+
+        entries.add(new CentralEntry(nameBytes, method, crc, data.length, size, offset));
+        return position - offset;
+    }
+
+    /**
+     * Grava o diretório central e fecha o stream de destino
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long centralStart = position;
+            for (CentralEntry entry : entries) {
+                writeCentralEntry(entry);
+            }
+            long centralSize = position - centralStart;
+
+            boolean zip64 = entries.size() >= MAX_16 || centralStart >= MAX_32 || centralSize >= MAX_32;
+            if (zip64) {
+                long zip64End = position;
+                writeBuffer(buffer(56)
+                        .putInt(ZIP64_END_OF_CENTRAL_DIRECTORY)
+                        .putLong(44)
+                        .putShort(VERSION_ZIP64)
+                        .putShort(VERSION_ZIP64)
+                        .putInt(0)
+                        .putInt(0)
+                        .putLong(entries.size())
+                        .putLong(entries.size())
+                        .putLong(centralSize)
+                        .putLong(centralStart));
+                writeBuffer(buffer(20)
+                        .putInt(ZIP64_LOCATOR)
+                        .putInt(0)
+                        .putLong(zip64End)
+                        .putInt(1));
+            }
+
+            // Com ZIP64, os campos que não cabem ficam com o valor máximo e são lidos do registro ZIP64
+            writeBuffer(buffer(22)
+                    .putInt(END_OF_CENTRAL_DIRECTORY)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) Math.min(entries.size(), MAX_16))
+                    .putShort((short) Math.min(entries.size(), MAX_16))
+                    .putInt((int) Math.min(centralSize, MAX_32))
+                    .putInt((int) Math.min(centralStart, MAX_32))
+                    .putShort((short) 0));
+            output.flush();
+        } finally {
+            output.close();
+        }
+    }
+
+    private void writeCentralEntry(CentralEntry entry) throws IOException {
+        // Posições a partir de 4 GB vão no campo extra ZIP64
+        boolean zip64 = entry.offset() >= MAX_32;
+        int extraLength = zip64 ? 12 : 0;
+
+        ByteBuffer header = buffer(46 + entry.name().length + extraLength);
+        header.putInt(CENTRAL_HEADER)
+                .putShort(VERSION_ZIP64)
+                .putShort(zip64 ? VERSION_ZIP64 : VERSION)
+                .putShort(FLAG_UTF8)
+                .putShort(entry.method())
+                .putInt(dosTime)
+                .putInt((int) entry.crc())
+                .putInt((int) entry.compressedSize())
+                .putInt((int) entry.size())
+                .putShort((short) entry.name().length)
+                .putShort((short) extraLength)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) (zip64 ? MAX_32 : entry.offset()))
+                .put(entry.name());
+        if (zip64) {
+            header.putShort(ZIP64_EXTRA)
+                    .putShort((short) 8)
+                    .putLong(entry.offset());
+        }
+        writeBuffer(header);
+    }
+
+    /**
+     * Nome único no arquivo: repetições recebem um sufixo antes da extensão (foto.pdf, foto_2.pdf...)
+     */
+    private String uniqueName(String name) {
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+
+        String key = name.toLowerCase(Locale.ROOT);
+        if (names.add(key)) {
+            return name;
+        }
+
+        int suffix = nextSuffix.getOrDefault(key, 2);
+        String candidate;
+        do {
+            candidate = base + "_" + suffix++ + extension;
+        } while (!names.add(candidate.toLowerCase(Locale.ROOT)));
+        nextSuffix.put(key, suffix);
+        return candidate;
+    }
+
+    private ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeBuffer(ByteBuffer buffer) throws IOException {
+        output.write(buffer.array(), 0, buffer.position());
+        position += buffer.position();
+    }
+
+    /**
+     * Data e hora no formato do MS-DOS usado pelos cabeçalhos do ZIP
+     */
+    private static int dosTime(LocalDateTime time) {
+        int year = Math.max(1980, time.getYear());
+        return (year - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    private record CentralEntry(byte[] name, short method, long crc, long compressedSize, long size, long offset) {
+    }
+}
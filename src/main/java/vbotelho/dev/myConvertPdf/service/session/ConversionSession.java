@@ -0,0 +1,200 @@
+package vbotelho.dev.myConvertPdf.service.session;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import lombok.AccessLevel;
+import lombok.Getter;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sessão de conversão incremental: um PDF ao qual lotes de imagens são acrescentados.
+ * <p>
+ * Enquanto a sessão está ativa o documento fica aberto, e cada lote grava apenas as novas
+ * páginas. Uma sessão ociosa é suspensa: o documento é finalizado em disco e liberado da
+ * memória, sendo reaberto em modo de anexação (append mode) no próximo lote. Na reabertura o
+ * PDF existente não é copiado: o arquivo em andamento recebe apenas a atualização incremental,
+ * acrescentada ao final do PDF na suspensão seguinte.
+ */
+@Getter
+public class ConversionSession {
+
+    private final String id;
+    private final ConversionOptions options;
+    private final long createdAt = System.currentTimeMillis();
+
+    @Getter(AccessLevel.NONE)
+    private final Path finalFile;
+    @Getter(AccessLevel.NONE)
+    private final Path workingFile;
+    @Getter(AccessLevel.PACKAGE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile long lastAccess = createdAt;
+    private volatile int imageCount;
+    private volatile int pageCount;
+    private volatile long bytesIn;
+    private volatile boolean closed;
+
+    // Documento aberto, ou null se a sessão estiver suspensa
+    @Getter(AccessLevel.NONE)
+    private PdfDocument document;
+
+    // Tamanho do PDF finalizado quando o documento foi reaberto em anexação (0 = documento novo)
+    @Getter(AccessLevel.NONE)
+    private long appendOffset;
+
+    ConversionSession(String id, ConversionOptions options, Path directory) {
+        this.id = id;
+        this.options = options;
+        this.finalFile = directory.resolve("session.pdf");
+        this.workingFile = directory.resolve("session.pdf.part");
+    }
+
+    public boolean isOpen() {
+        return document != null;
+    }
+
+    /**
+     * Documento aberto para receber novas páginas, reabrindo-o em modo de anexação se a
+     * sessão estiver suspensa. Deve ser chamado com o lock da sessão.
+     *
+     * @param properties Propriedades de gravação conforme o perfil de saída da sessão
+     */
+    PdfDocument openDocument(WriterProperties properties) throws IOException {
+        if (document == null) {
+            if (Files.exists(finalFile)) {
+                // Anexação: o iText grava primeiro o conteúdo original e depois a atualização incremental.
+                // O conteúdo original é descartado na gravação; só a atualização vai para o arquivo em andamento
+                appendOffset = Files.size(finalFile);
+                OutputStream increment = new SkipPrefixOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(workingFile)), appendOffset);
+                document = new PdfDocument(new PdfReader(finalFile.toFile()),
+                        new PdfWriter(increment, properties), new StampingProperties().useAppendMode());
+            } else {
+                appendOffset = 0;
+                document = new PdfDocument(new PdfWriter(workingFile.toString(), properties));
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Finaliza o documento em disco e o libera da memória. Deve ser chamado com o lock da sessão.
+     *
+     * @return Arquivo PDF finalizado, ou null se nenhuma página foi gravada
+     */
+    Path suspend() throws IOException {
+        if (document != null && document.getNumberOfPages() == 0) {
+            // Nenhuma página gravada (todas as imagens do primeiro lote falharam)
+            discardDocument();
+            Files.deleteIfExists(workingFile);
+        } else if (document != null) {
+            PdfDocument current = document;
+            document = null;
+            current.close();
+            if (appendOffset > 0) {
+                appendIncrement();
+            } else {
+                Files.move(workingFile, finalFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return Files.exists(finalFile) ? finalFile : null;
+    }
+
+    /**
+     * Acrescenta a atualização incremental ao final do PDF finalizado. Em caso de falha o PDF
+     * volta ao tamanho anterior, mantendo as páginas já gravadas.
+     */
+    private void appendIncrement() throws IOException {
+        try (FileChannel source = FileChannel.open(workingFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(finalFile, StandardOpenOption.WRITE)) {
+            long size = source.size();
+            try {
+                long written = 0;
+                while (written < size) {
+                    written += target.transferFrom(source, appendOffset + written, size - written);
+                }
+            } catch (IOException e) {
+                target.truncate(appendOffset);
+                throw e;
+            }
+        }
+        Files.delete(workingFile);
+        appendOffset = 0;
+    }
+
+    /**
+     * Descarta o documento aberto sem finalizá-lo
+     */
+    void discardDocument() {
+        if (document != null) {
+            try {
+                document.close();
+            } catch (RuntimeException e) {
+                // O documento já está inconsistente; o arquivo em andamento é removido com a sessão
+            }
+            document = null;
+        }
+    }
+
+    void recordBatch(int images, long bytes) {
+        imageCount += images;
+        bytesIn += bytes;
+        if (document != null) {
+            pageCount = document.getNumberOfPages();
+        }
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    void markClosed() {
+        closed = true;
+    }
+
+    /**
+     * Descarta os primeiros bytes gravados, repassando apenas o restante
+     */
+    private static final class SkipPrefixOutputStream extends FilterOutputStream {
+
+        private long remaining;
+
+        SkipPrefixOutputStream(OutputStream out, long prefixLength) {
+            super(out);
+            this.remaining = prefixLength;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (remaining > 0) {
+                remaining--;
+            } else {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int skipped = (int) Math.min(remaining, len);
+            remaining -= skipped;
+            if (len > skipped) {
+                out.write(b, off + skipped, len - skipped);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package vbotelho.dev.myConvertPdf.service.session;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.enums.ImageStatus;
+import vbotelho.dev.myConvertPdf.service.ConversionResult;
+import vbotelho.dev.myConvertPdf.service.PdfConversionService;
+import vbotelho.dev.myConvertPdf.service.exception.ConversionException;
+import vbotelho.dev.myConvertPdf.service.exception.InvalidUploadException;
+import vbotelho.dev.myConvertPdf.service.exception.SessionLimitExceededException;
+import vbotelho.dev.myConvertPdf.service.exception.SessionNotFoundException;
+import vbotelho.dev.myConvertPdf.service.store.ArtifactStore;
+import vbotelho.dev.myConvertPdf.service.store.NodeWorkspace;
+import vbotelho.dev.myConvertPdf.service.store.StoredArtifact;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Serviço das sessões de conversão incremental (/api/convert/sessions).
+ * <p>
+ * Cada lote enviado é acrescentado ao PDF da sessão, e o custo de cada lote é proporcional
+ * apenas às novas páginas. Ao fechar a sessão, o PDF é finalizado e disponibilizado para download.
+ */
+@Slf4j
+@Service
+public class ConversionSessionService {
+
+    private final PdfConversionService pdfConversionService;
+    private final ArtifactStore artifactStore;
+    private final Path sessionsDirectory;
+    private final Map<String, ConversionSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${app.sessions.max-sessions:50}")
+    private int maxSessions;
+
+    @Value("${app.sessions.suspend-after-seconds:60}")
+    private long suspendAfterSeconds;
+
+    @Value("${app.sessions.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public ConversionSessionService(PdfConversionService pdfConversionService, ArtifactStore artifactStore,
+                                    NodeWorkspace workspace) {
+        this.pdfConversionService = pdfConversionService;
+        this.artifactStore = artifactStore;
+        this.sessionsDirectory = workspace.resolve("sessions");
+    }
+
+    /**
+     * Abre uma sessão vazia
+     *
+     * @throws SessionLimitExceededException se o limite de sessões abertas for atingido
+     */
+    public ConversionSession create(ConversionOptions options) {
+        if (sessions.size() >= maxSessions) {
+            throw new SessionLimitExceededException("Limite de sessões abertas atingido. Tente novamente mais tarde");
+        }
+
+        String sessionId = UUID.randomUUID().toString();
+        Path directory = sessionsDirectory.resolve(sessionId);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new ConversionException("Erro ao criar sessão: " + e.getMessage(), e);
+        }
+
+        ConversionSession session = new ConversionSession(sessionId, options, directory);
+        sessions.put(sessionId, session);
+        log.info("Sessão {} aberta", sessionId);
+        return session;
+    }
+
+    /**
+     * Busca uma sessão aberta pelo id
+     *
+     * @throws SessionNotFoundException se a sessão não existir ou já tiver sido fechada
+     */
+    public ConversionSession getSession(String sessionId) {
+        ConversionSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException("Sessão não encontrada: " + sessionId);
+        }
+        return session;
+    }
+
+    /**
+     * Acrescenta um lote de imagens ao PDF da sessão. Lotes da mesma sessão são gravados
+     * um de cada vez, na ordem de chegada.
+     *
+     * @return Resultado do lote, com os bytes acrescentados ao PDF
+     */
+    public ConversionResult append(String sessionId, List<MultipartFile> images) {
+        return withSession(sessionId, session -> {
+            ConversionResult result;
+            try {
+                PdfDocument document = session.openDocument(pdfConversionService.writerProperties(session.getOptions()));
+                result = pdfConversionService.appendToPdf(document, images, session.getOptions(), session.getId());
+            } catch (ConversionException e) {
+                if (e.getImageResults().isEmpty()) {
+                    // Erro durante a escrita: o documento aberto não é mais confiável
+                    discard(session);
+                    throw e;
+                }
+                // Rejeitado pela política de falhas: as imagens já gravadas permanecem na sessão
+                session.recordBatch(ConversionResult.count(e.getImageResults(), ImageStatus.CONVERTED), 0);
+                throw e;
+            } catch (IOException e) {
+                discard(session);
+                throw new ConversionException("Erro ao abrir o PDF da sessão: " + e.getMessage(), e);
+            }
+
+            session.recordBatch(result.processedImages(), result.bytesIn());
+            log.info("Sessão {}: {} imagens acrescentadas, {} páginas no total",
+                    session.getId(), result.processedImages(), session.getPageCount());
+            return result;
+        });
+    }
+
+    /**
+     * Finaliza o PDF da sessão e o disponibiliza para download. A sessão deixa de existir.
+     *
+     * @return Resultado com o caminho do arquivo gerado
+     */
+    public ConversionResult close(String sessionId) {
+        return withSession(sessionId, session -> {
+            try {
+                Path sessionFile = session.suspend();
+                if (sessionFile == null) {
+                    throw new InvalidUploadException("Nenhuma imagem foi acrescentada à sessão");
+                }
+
+                StoredArtifact artifact;
+                try (ArtifactStore.Output output = artifactStore.create("converted_" + UUID.randomUUID() + ".pdf")) {
+                    Files.move(sessionFile, output.path(), StandardCopyOption.REPLACE_EXISTING);
+                    artifact = output.commit();
+                }
+                remove(session);
+                deleteDirectory(session);
+
+                log.info("Sessão {} fechada: {} imagens, {} páginas", session.getId(),
+                        session.getImageCount(), session.getPageCount());
+                return new ConversionResult(artifact.path(), session.getBytesIn(), artifact.size(), List.of());
+
+            } catch (IOException e) {
+                discard(session);
+                throw new ConversionException("Erro ao finalizar o PDF da sessão: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Cancela a sessão, descartando o PDF em andamento
+     */
+    public void cancel(String sessionId) {
+        withSession(sessionId, session -> {
+            discard(session);
+            log.info("Sessão {} cancelada", session.getId());
+            return null;
+        });
+    }
+
+    /**
+     * Suspende as sessões ociosas (liberando o documento da memória) e remove as expiradas
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.cleanup-interval-ms:30000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        long suspendLimit = now - TimeUnit.SECONDS.toMillis(suspendAfterSeconds);
+        long expireLimit = now - TimeUnit.MINUTES.toMillis(retentionMinutes);
+
+        for (ConversionSession session : sessions.values()) {
+            // Sessões recebendo um lote são verificadas na próxima execução
+            if (!session.getLock().tryLock()) {
+                continue;
+            }
+            try {
+                if (session.getLastAccess() < expireLimit) {
+                    log.info("Sessão {} expirada", session.getId());
+                    discard(session);
+                } else if (session.isOpen() && session.getLastAccess() < suspendLimit) {
+                    session.suspend();
+                    log.debug("Sessão {} suspensa", session.getId());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Erro ao suspender sessão {}", session.getId(), e);
+                discard(session);
+            } finally {
+                session.getLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Executa a operação com o lock da sessão, garantindo que ela ainda esteja aberta
+     */
+    private <T> T withSession(String sessionId, Function<ConversionSession, T> operation) {
+        ConversionSession session = getSession(sessionId);
+        session.getLock().lock();
+        try {
+            if (session.isClosed()) {
+                throw new SessionNotFoundException("Sessão não encontrada: " + sessionId);
+            }
+            session.touch();
+            return operation.apply(session);
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    private void discard(ConversionSession session) {
+        session.discardDocument();
+        remove(session);
+        deleteDirectory(session);
+    }
+
+    private void deleteDirectory(ConversionSession session) {
+        try {
+            FileSystemUtils.deleteRecursively(sessionsDirectory.resolve(session.getId()));
+        } catch (IOException e) {
+            log.warn("Erro ao remover diretório da sessão: {}", session.getId(), e);
+        }
+    }
+
+    private void remove(ConversionSession session) {
+        session.markClosed();
+        sessions.remove(session.getId());
+    }
+}
@@ -0,0 +1,61 @@
+package vbotelho.dev.myConvertPdf.service.startup;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Relatório do tempo de inicialização, registrado no log quando a aplicação fica pronta:
+ * tempo da JVM até o início do Spring, do contexto, do aquecimento e o total até o readiness,
+ * além do uso de AOT e de CDS. Os tempos também ficam nas métricas application.started.time
+ * e application.ready.time do actuator.
+ */
+@Slf4j
+@Component
+public class StartupReport {
+
+    private final StartupWarmup startupWarmup;
+
+    private long startedTimeMs = -1;
+
+    public StartupReport(StartupWarmup startupWarmup) {
+        this.startupWarmup = startupWarmup;
+    }
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        startedTimeMs = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        long processUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long readyTime = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+        long jvmTime = readyTime >= 0 ? processUptime - readyTime : -1;
+
+        log.info("Inicialização: JVM {}ms, contexto {}ms, aquecimento {}, pronto em {}ms desde o início do processo "
+                        + "(AOT: {}, CDS: {})",
+                jvmTime, startedTimeMs,
+                startupWarmup.getDurationMs() >= 0 ? startupWarmup.getDurationMs() + "ms" : "desativado",
+                processUptime, AotDetector.useGeneratedArtifacts() ? "ativado" : "desativado", sharedArchive());
+    }
+
+    /**
+     * Arquivo CDS informado na JVM (-XX:SharedArchiveFile)
+     */
+    private String sharedArchive() {
+        try {
+            String archive = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption("SharedArchiveFile").getValue();
+            return archive.isEmpty() ? "arquivo padrão do JDK" : archive;
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            return "indisponível";
+        }
+    }
+}
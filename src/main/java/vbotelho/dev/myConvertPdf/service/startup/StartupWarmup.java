@@ -0,0 +1,92 @@
+package vbotelho.dev.myConvertPdf.service.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.NullOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.service.PdfConversionService;
+import vbotelho.dev.myConvertPdf.service.upload.InMemoryImageFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Aquecimento na inicialização: executa uma conversão pequena, em memória, antes de a aplicação
+ * ser considerada pronta (o readiness probe só passa a aceitar tráfego após os ApplicationRunners).
+ * <p>
+ * O carregamento das classes e recursos do iText, do ImageIO e do pipeline de conversão deixa
+ * de acontecer dentro da primeira requisição de um usuário. A conversão de aquecimento não gera
+ * arquivo, mas é contabilizada nas métricas de conversão como qualquer outra.
+ */
+@Slf4j
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private final PdfConversionService pdfConversionService;
+
+    @Value("${app.startup.warmup:false}")
+    private boolean enabled;
+
+    private volatile long durationMs = -1;
+
+    public StartupWarmup(PdfConversionService pdfConversionService) {
+        this.pdfConversionService = pdfConversionService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            // Um JPEG (embutido sem decodificação) e um PNG (decodificado): os dois caminhos da conversão
+            List<MultipartFile> images = List.of(
+                    sampleImage("warmup.jpg", "jpeg", "image/jpeg"),
+                    sampleImage("warmup.png", "png", "image/png"));
+            pdfConversionService.convertToPdf(images, ConversionOptions.defaults(), NullOutputStream.INSTANCE);
+            durationMs = System.currentTimeMillis() - start;
+            log.info("Aquecimento concluído em {}ms", durationMs);
+
+        } catch (IOException | RuntimeException e) {
+            // O aquecimento é apenas uma otimização: a aplicação inicia mesmo se ele falhar
+            log.warn("Falha no aquecimento da conversão", e);
+        }
+    }
+
+    /**
+     * Duração do aquecimento
+     *
+     * @return Milissegundos, ou -1 se o aquecimento não foi executado
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    private MultipartFile sampleImage(String filename, String format, String contentType) throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setColor(Color.BLUE);
+            g.fillRect(8, 8, 48, 32);
+        } finally {
+            g.dispose();
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, format, baos);
+        return new InMemoryImageFile("files", filename, contentType, baos.toByteArray());
+    }
+}
@@ -0,0 +1,85 @@
+package vbotelho.dev.myConvertPdf.service.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Armazenamento dos arquivos gerados pelas conversões (PDFs e ZIPs disponíveis para download).
+ * <p>
+ * Os arquivos são gravados em uma área de escrita e só ficam visíveis após {@link Output#commit()},
+ * então nenhuma instância encontra um arquivo incompleto. Cada arquivo tem metadados com a
+ * instância que o gerou e a expiração, renovada a cada acesso.
+ * <p>
+ * Implementações: {@link LocalArtifactStore} (diretório temporário da instância) e
+ * {@link SharedDirectoryArtifactStore} (diretório compartilhado entre instâncias, como um volume NFS).
+ */
+public interface ArtifactStore {
+
+    /**
+     * Inicia a gravação de um novo arquivo
+     *
+     * @param name Nome do arquivo (sem diretórios)
+     */
+    Output create(String name) throws IOException;
+
+    /**
+     * Busca um arquivo disponível
+     *
+     * @return Arquivo, ou null se não existir
+     */
+    StoredArtifact find(String name);
+
+    /**
+     * Registra um acesso ao arquivo, adiando sua expiração
+     */
+    void touch(String name);
+
+    /**
+     * Remove um arquivo e seus metadados
+     *
+     * @return true se o arquivo existia
+     */
+    boolean delete(String name);
+
+    /**
+     * Arquivos disponíveis no armazenamento
+     */
+    List<StoredArtifact> list();
+
+    /**
+     * Remove gravações não concluídas mais antigas que o instante informado
+     * (por exemplo, de uma instância encerrada durante uma conversão)
+     *
+     * @return Quantidade de arquivos removidos
+     */
+    int purgeIncomplete(long olderThan);
+
+    /**
+     * Identificação desta instância, registrada nos metadados dos arquivos gerados por ela
+     */
+    String nodeId();
+
+    /**
+     * Arquivo em gravação. Se fechado sem {@link #commit()}, a gravação é descartada.
+     */
+    interface Output extends Closeable {
+
+        /**
+         * Caminho do arquivo em gravação, para quem grava diretamente no sistema de arquivos
+         */
+        Path path();
+
+        /**
+         * Stream de gravação do arquivo (aberto na primeira chamada)
+         */
+        OutputStream stream() throws IOException;
+
+        /**
+         * Conclui a gravação e torna o arquivo disponível
+         */
+        StoredArtifact commit() throws IOException;
+    }
+}
@@ -0,0 +1,212 @@
+package vbotelho.dev.myConvertPdf.service.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Base dos armazenamentos em diretório: as gravações são feitas em {@code .incoming} e movidas
+ * atomicamente para o diretório ao serem concluídas. O SHA-256 do conteúdo é calculado durante a
+ * gravação (ou, para arquivos gravados pelo caminho, uma única vez na conclusão) e guardado nos
+ * metadados. O registro dos metadados fica a cargo das implementações.
+ */
+@Slf4j
+public abstract class FileSystemArtifactStore implements ArtifactStore {
+
+    private static final String INCOMING_DIR = ".incoming";
+
+    protected final Path directory;
+    protected final Path incoming;
+    protected final long retentionMillis;
+    private final String nodeId;
+
+    protected FileSystemArtifactStore(Path directory, String nodeId, long retentionMillis) throws IOException {
+        this.directory = directory;
+        this.incoming = directory.resolve(INCOMING_DIR);
+        this.nodeId = nodeId;
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(incoming);
+    }
+
+    /**
+     * Grava os metadados de um arquivo, antes de ele ficar visível
+     */
+    protected abstract void saveMetadata(StoredArtifact artifact) throws IOException;
+
+    /**
+     * Metadados de um arquivo
+     *
+     * @return Metadados, ou null se não registrados
+     */
+    protected abstract StoredArtifact loadMetadata(String name);
+
+    protected abstract void removeMetadata(String name);
+
+    @Override
+    public Output create(String name) throws IOException {
+        if (name.isEmpty() || name.startsWith(".") || !name.equals(Path.of(name).getFileName().toString())) {
+            throw new IllegalArgumentException("Nome de arquivo inválido: " + name);
+        }
+        return new FileOutput(name, incoming.resolve(UUID.randomUUID() + "-" + name));
+    }
+
+    @Override
+    public StoredArtifact find(String name) {
+        Path path = directory.resolve(name);
+        if (name.startsWith(".") || !Files.isRegularFile(path)) {
+            return null;
+        }
+
+        StoredArtifact artifact = loadMetadata(name);
+        if (artifact != null) {
+            return artifact;
+        }
+        try {
+            // Sem metadados (por exemplo, gravados por outra versão da aplicação): usa os atributos do arquivo
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            return new StoredArtifact(name, path, Files.size(path), "", modified, modified + retentionMillis, "");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String name) {
+        removeMetadata(name);
+        Path path = directory.resolve(name);
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Erro ao remover arquivo: {}", path, e);
+            return false;
+        }
+    }
+
+    @Override
+    public int purgeIncomplete(long olderThan) {
+        int removed = 0;
+        try (Stream<Path> files = Files.list(incoming)) {
+            for (Path file : files.toList()) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < olderThan && Files.deleteIfExists(file)) {
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    log.debug("Gravação incompleta não removida: {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Erro ao listar gravações incompletas em {}", incoming, e);
+        }
+        return removed;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    private StoredArtifact publish(String name, Path file, String sha256) throws IOException {
+        long now = System.currentTimeMillis();
+        Path target = directory.resolve(name);
+        StoredArtifact artifact = new StoredArtifact(name, target, Files.size(file), nodeId, now,
+                now + retentionMillis, sha256);
+
+        saveMetadata(artifact);
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            removeMetadata(name);
+            throw e;
+        }
+        return artifact;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static String digestOf(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private class FileOutput implements Output {
+
+        private final String name;
+        private final Path file;
+        private OutputStream stream;
+        private MessageDigest digest;
+        private boolean committed;
+
+        private FileOutput(String name, Path file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        @Override
+        public Path path() {
+            return file;
+        }
+
+        @Override
+        public OutputStream stream() throws IOException {
+            if (stream == null) {
+                digest = sha256();
+                stream = new DigestOutputStream(Files.newOutputStream(file), digest);
+            }
+            return stream;
+        }
+
+        @Override
+        public StoredArtifact commit() throws IOException {
+            String sha256;
+            if (stream != null) {
+                stream.close();
+                sha256 = HexFormat.of().formatHex(digest.digest());
+            } else {
+                // Gravado diretamente no caminho: lê o arquivo uma vez
+                sha256 = digestOf(file);
+            }
+            StoredArtifact artifact = publish(name, file, sha256);
+            committed = true;
+            return artifact;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
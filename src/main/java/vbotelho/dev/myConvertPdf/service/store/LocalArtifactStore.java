@@ -0,0 +1,52 @@
+package vbotelho.dev.myConvertPdf.service.store;
+
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arquivos no diretório de trabalho da instância ({@code artifacts} em {@link NodeWorkspace}), com os metadados
+ * em memória. Apenas esta instância serve os downloads: atrás de um balanceador, exige sessões fixas.
+ */
+public class LocalArtifactStore extends FileSystemArtifactStore {
+
+    private final Map<String, StoredArtifact> artifacts = new ConcurrentHashMap<>();
+
+    public LocalArtifactStore(Path directory, String nodeId, long retentionMillis) throws IOException {
+        super(directory, nodeId, retentionMillis);
+        // Diretório exclusivo desta instância: gravações de execuções anteriores nunca serão concluídas
+        FileSystemUtils.deleteRecursively(incoming);
+        Files.createDirectories(incoming);
+    }
+
+    @Override
+    protected void saveMetadata(StoredArtifact artifact) {
+        artifacts.put(artifact.name(), artifact);
+    }
+
+    @Override
+    protected StoredArtifact loadMetadata(String name) {
+        return artifacts.get(name);
+    }
+
+    @Override
+    protected void removeMetadata(String name) {
+        artifacts.remove(name);
+    }
+
+    @Override
+    public void touch(String name) {
+        artifacts.computeIfPresent(name,
+                (key, artifact) -> artifact.withExpiresAt(System.currentTimeMillis() + retentionMillis));
+    }
+
+    @Override
+    public List<StoredArtifact> list() {
+        return List.copyOf(artifacts.values());
+    }
+}
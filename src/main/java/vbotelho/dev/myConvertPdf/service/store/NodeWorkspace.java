@@ -0,0 +1,97 @@
+package vbotelho.dev.myConvertPdf.service.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Diretório de trabalho exclusivo da instância ({@code app.upload.temp-dir/nodes/<instância>}), com os
+ * arquivos que só ela usa: jobs, sessões, cache de páginas e, no armazenamento local, os arquivos gerados.
+ * <p>
+ * Na inicialização é limpo apenas o diretório desta instância (restos de uma execução anterior com a
+ * mesma identificação) e os de processos já encerrados neste host (identificação padrão pid@host).
+ * Outras instâncias no mesmo host, com o mesmo app.upload.temp-dir, não são afetadas.
+ */
+@Slf4j
+public final class NodeWorkspace {
+
+    private static final String NODES_DIR = "nodes";
+    private static final Pattern UNSAFE_CHARS = Pattern.compile("[^A-Za-z0-9._@-]");
+    private static final Pattern PROCESS_NODE = Pattern.compile("(\\d{1,18})@(.+)");
+
+    private final String nodeId;
+    private final Path directory;
+
+    private NodeWorkspace(String nodeId, Path directory) {
+        this.nodeId = nodeId;
+        this.directory = directory;
+    }
+
+    /**
+     * Prepara o diretório da instância, descartando o conteúdo de execuções anteriores
+     *
+     * @param tempDir Diretório temporário da aplicação (app.upload.temp-dir)
+     * @param nodeId  Identificação da instância
+     */
+    public static NodeWorkspace open(Path tempDir, String nodeId) throws IOException {
+        Path nodes = tempDir.resolve(NODES_DIR);
+        Path directory = nodes.resolve(UNSAFE_CHARS.matcher(nodeId).replaceAll("_"));
+
+        FileSystemUtils.deleteRecursively(directory);
+        Files.createDirectories(directory);
+        removeStoppedProcesses(nodes, directory);
+
+        return new NodeWorkspace(nodeId, directory);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Subdiretório da instância (não criado)
+     */
+    public Path resolve(String name) {
+        return directory.resolve(name);
+    }
+
+    /**
+     * Remove os diretórios de processos encerrados deste host, que ninguém mais limparia:
+     * com a identificação padrão, cada execução usa um diretório diferente
+     */
+    private static void removeStoppedProcesses(Path nodes, Path current) {
+        Matcher self = PROCESS_NODE.matcher(ManagementFactory.getRuntimeMXBean().getName());
+        if (!self.matches()) {
+            return;
+        }
+        String host = UNSAFE_CHARS.matcher(self.group(2)).replaceAll("_");
+
+        try (Stream<Path> directories = Files.list(nodes)) {
+            for (Path directory : directories.toList()) {
+                Matcher node = PROCESS_NODE.matcher(directory.getFileName().toString());
+                if (directory.equals(current) || !node.matches() || !node.group(2).equals(host)) {
+                    continue;
+                }
+                long pid = Long.parseLong(node.group(1));
+                if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                    continue;
+                }
+                FileSystemUtils.deleteRecursively(directory);
+                log.info("Diretório de trabalho de processo encerrado removido: {}", directory);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Erro ao remover diretórios de processos encerrados em {}", nodes, e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package vbotelho.dev.myConvertPdf.service.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Arquivos em um diretório compartilhado entre instâncias ({@code app.artifacts.shared-dir}, por
+ * exemplo um volume NFS): qualquer instância serve o download de um arquivo gerado por outra.
+ * <p>
+ * Os metadados ficam em {@code .meta/<nome>.properties}, gravados com substituição atômica.
+ * A limpeza pode ser executada por qualquer instância: a expiração e a cota valem para o
+ * diretório inteiro, incluindo arquivos de instâncias já encerradas.
+ */
+@Slf4j
+public class SharedDirectoryArtifactStore extends FileSystemArtifactStore {
+
+    private static final String META_DIR = ".meta";
+    private static final String META_SUFFIX = ".properties";
+
+    private final Path metaDirectory;
+
+    public SharedDirectoryArtifactStore(Path directory, String nodeId, long retentionMillis) throws IOException {
+        super(directory, nodeId, retentionMillis);
+        this.metaDirectory = directory.resolve(META_DIR);
+        Files.createDirectories(metaDirectory);
+    }
+
+    @Override
+    protected void saveMetadata(StoredArtifact artifact) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("node", artifact.nodeId());
+        properties.setProperty("size", Long.toString(artifact.size()));
+        properties.setProperty("created-at", Long.toString(artifact.createdAt()));
+        properties.setProperty("expires-at", Long.toString(artifact.expiresAt()));
+        properties.setProperty("sha256", artifact.sha256());
+
+        // Gravado à parte e movido: as outras instâncias nunca leem metadados incompletos
+        Path temp = metaDirectory.resolve("." + UUID.randomUUID() + META_SUFFIX);
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, null);
+        }
+        try {
+            Files.move(temp, metaPath(artifact.name()), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, metaPath(artifact.name()), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    protected StoredArtifact loadMetadata(String name) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(metaPath(name))) {
+            properties.load(in);
+            return new StoredArtifact(name, directory.resolve(name),
+                    Long.parseLong(properties.getProperty("size")),
+                    properties.getProperty("node", ""),
+                    Long.parseLong(properties.getProperty("created-at")),
+                    Long.parseLong(properties.getProperty("expires-at")),
+                    properties.getProperty("sha256", ""));
+
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Metadados inválidos do arquivo {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    protected void removeMetadata(String name) {
+        try {
+            Files.deleteIfExists(metaPath(name));
+        } catch (IOException e) {
+            log.warn("Erro ao remover metadados do arquivo {}", name, e);
+        }
+    }
+
+    @Override
+    public void touch(String name) {
+        StoredArtifact artifact = loadMetadata(name);
+        if (artifact == null) {
+            return;
+        }
+
+        // Evita regravar os metadados a cada requisição (downloads retomados fazem várias)
+        long expiresAt = System.currentTimeMillis() + retentionMillis;
+        if (expiresAt - artifact.expiresAt() < retentionMillis / 10) {
+            return;
+        }
+        try {
+            saveMetadata(artifact.withExpiresAt(expiresAt));
+        } catch (IOException e) {
+            log.warn("Erro ao renovar a expiração do arquivo {}", name, e);
+        }
+    }
+
+    @Override
+    public List<StoredArtifact> list() {
+        List<StoredArtifact> artifacts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".") || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                StoredArtifact artifact = find(name);
+                if (artifact != null) {
+                    artifacts.add(artifact);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Erro ao listar arquivos em {}", directory, e);
+        }
+        return artifacts;
+    }
+
+    private Path metaPath(String name) {
+        return metaDirectory.resolve(name + META_SUFFIX);
+    }
+}
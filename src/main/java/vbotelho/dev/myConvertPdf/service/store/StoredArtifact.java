@@ -0,0 +1,22 @@
+package vbotelho.dev.myConvertPdf.service.store;
+
+import java.nio.file.Path;
+
+/**
+ * Arquivo disponível no {@link ArtifactStore}
+ *
+ * @param name      Nome do arquivo (usado no download)
+ * @param path      Caminho do arquivo
+ * @param size      Tamanho (bytes)
+ * @param nodeId    Instância que gerou o arquivo
+ * @param createdAt Criação (epoch millis)
+ * @param expiresAt Expiração (epoch millis), renovada a cada acesso
+ * @param sha256    SHA-256 do conteúdo (hexadecimal), calculado na gravação; vazio se desconhecido
+ */
+public record StoredArtifact(String name, Path path, long size, String nodeId, long createdAt, long expiresAt,
+                             String sha256) {
+
+    public StoredArtifact withExpiresAt(long newExpiresAt) {
+        return new StoredArtifact(name, path, size, nodeId, createdAt, newExpiresAt, sha256);
+    }
+}
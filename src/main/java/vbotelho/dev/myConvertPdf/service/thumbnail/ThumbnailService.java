@@ -0,0 +1,145 @@
+package vbotelho.dev.myConvertPdf.service.thumbnail;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.dto.ConversionOptions;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageThumbnails;
+import vbotelho.dev.myConvertPdf.service.pipeline.PageThumbnails;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Miniaturas (JPEG) das páginas dos PDFs gerados, servidas em /api/convert/{id}/pages/{n}/thumbnail.
+ * <p>
+ * As miniaturas são geradas apenas quando solicitadas na requisição (opção thumbnails), pois
+ * imagens que não são decodificadas na conversão (JPEG embutido diretamente, imagens sem
+ * reamostragem) precisam ser lidas novamente, com subamostragem. Quando a imagem já foi
+ * decodificada para a reamostragem, a miniatura é reduzida a partir dela.
+ * As miniaturas ficam disponíveis assim que cada página é gravada. São mantidas em um cache em memória LRU
+ * limitado por tamanho, indexado pelo id da conversão e pelo número da página.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    private static final long MB = 1024 * 1024;
+
+    @Value("${app.thumbnails.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.thumbnails.max-size:200}")
+    private int maxSize;
+
+    @Value("${app.thumbnails.jpeg-quality:0.75}")
+    private float jpegQuality;
+
+    @Value("${app.thumbnails.max-memory-mb:32}")
+    private long maxMemoryMb;
+
+    // LinkedHashMap em ordem de acesso: o primeiro elemento é o menos usado recentemente
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lê as miniaturas dos quadros da imagem (o primeiro imediatamente, os demais sob demanda)
+     */
+    public ImageThumbnails imageThumbnails(MultipartFile imageFile) {
+        return ImageThumbnails.of(imageFile, maxSize);
+    }
+
+    /**
+     * Miniatura de uma imagem já decodificada na preparação (sem nova leitura do arquivo)
+     *
+     * @param width  Largura original da imagem (pixels)
+     * @param height Altura original da imagem (pixels)
+     */
+    public ImageThumbnails imageThumbnails(BufferedImage decoded, int width, int height) {
+        return ImageThumbnails.of(decoded, width, height, maxSize);
+    }
+
+    /**
+     * Inicia as miniaturas das páginas de uma conversão
+     *
+     * @param conversionId Id da conversão (null para não gerar miniaturas)
+     * @param options      Opções da conversão: as miniaturas só são geradas se solicitadas
+     * @return Miniaturas das páginas, ou null se as miniaturas estiverem desativadas ou não solicitadas
+     */
+    public PageThumbnails open(String conversionId, ConversionOptions options) {
+        if (!enabled || conversionId == null || !options.isThumbnails()) {
+            return null;
+        }
+        return new PageThumbnails(maxSize, (pageNumber, thumbnail) -> store(conversionId, pageNumber, thumbnail));
+    }
+
+    /**
+     * Busca a miniatura de uma página
+     *
+     * @return Bytes do JPEG, ou null se a página não existir ou tiver sido removida do cache
+     */
+    public synchronized byte[] get(String conversionId, int pageNumber) {
+        return memory.get(key(conversionId, pageNumber));
+    }
+
+    private void store(String conversionId, int pageNumber, BufferedImage thumbnail) {
+        byte[] jpeg;
+        try {
+            jpeg = encodeJpeg(thumbnail);
+        } catch (IOException e) {
+            log.warn("Erro ao gerar miniatura da página {} da conversão {}", pageNumber, conversionId, e);
+            return;
+        }
+        put(key(conversionId, pageNumber), jpeg);
+    }
+
+    private synchronized void put(String key, byte[] jpeg) {
+        long maxBytes = maxMemoryMb * MB;
+        if (jpeg.length > maxBytes) {
+            return;
+        }
+
+        byte[] previous = memory.put(key, jpeg);
+        memoryBytes += jpeg.length - (previous != null ? previous.length : 0);
+
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxBytes && it.hasNext()) {
+            memoryBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private String key(String conversionId, int pageNumber) {
+        return conversionId + "/" + pageNumber;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+}
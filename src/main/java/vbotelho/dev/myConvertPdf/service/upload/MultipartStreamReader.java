@@ -0,0 +1,278 @@
+package vbotelho.dev.myConvertPdf.service.upload;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import vbotelho.dev.myConvertPdf.service.exception.InvalidUploadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Leitor sequencial de corpos multipart/form-data.
+ * <p>
+ * As partes são lidas diretamente do stream da requisição, uma de cada vez, sem
+ * gravar o upload em disco. O conteúdo de cada parte deve ser consumido antes de
+ * avançar para a próxima.
+ * <p>
+ * O total de bytes lidos e a quantidade de partes são limitados, como no processamento
+ * multipart do Spring (max-request-size e max-part-count): ultrapassados os limites, a
+ * leitura falha com {@link InvalidUploadException}.
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final InputStream input;
+    private final long maxRequestSize;
+    private final int maxParts;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+    private long totalRead;
+    private int partCount;
+
+    // Conteúdo da parte atual ainda não consumido
+    private PartInputStream currentPart;
+
+    /**
+     * @param maxRequestSize Total máximo de bytes do corpo (negativo para não limitar)
+     * @param maxParts       Quantidade máxima de partes, incluindo campos e partes ignoradas (negativo para não limitar)
+     */
+    public MultipartStreamReader(InputStream input, String boundary, long maxRequestSize, int maxParts) {
+        this.input = input;
+        this.maxRequestSize = maxRequestSize;
+        this.maxParts = maxParts;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+
+        // O primeiro delimitador não é precedido de CRLF: simula um para simplificar a busca
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Parte do corpo multipart
+     *
+     * @param name        Nome do campo
+     * @param filename    Nome do arquivo, ou null para campos de formulário
+     * @param contentType Tipo declarado da parte, ou null
+     * @param content     Conteúdo da parte, válido até a leitura da próxima
+     */
+    public record Part(String name, String filename, String contentType, InputStream content) {
+
+        public boolean isFile() {
+            return filename != null;
+        }
+    }
+
+    /**
+     * Avança para a próxima parte, descartando o que restar da atual
+     *
+     * @return Próxima parte, ou null ao final do corpo
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        if (currentPart != null) {
+            currentPart.skipRemaining();
+        } else {
+            // Descarta o preâmbulo até o primeiro delimitador
+            new PartInputStream().skipRemaining();
+        }
+
+        // Após o delimitador: "--" encerra o corpo, CRLF inicia uma nova parte
+        if (!ensure(2)) {
+            throw new IOException("Corpo multipart truncado");
+        }
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            currentPart = null;
+            return null;
+        }
+        if (buffer[pos] != '\r' || buffer[pos + 1] != '\n') {
+            throw new IOException("Delimitador multipart inválido");
+        }
+        pos += 2;
+
+        if (maxParts >= 0 && ++partCount > maxParts) {
+            throw new InvalidUploadException(
+                    String.format("Número máximo de partes do upload excedido. Máximo: %d", maxParts));
+        }
+
+        HttpHeaders headers = readHeaders();
+        String disposition = headers.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        if (disposition == null) {
+            throw new IOException("Parte multipart sem Content-Disposition");
+        }
+
+        ContentDisposition contentDisposition = ContentDisposition.parse(disposition);
+        currentPart = new PartInputStream();
+        return new Part(contentDisposition.getName(), contentDisposition.getFilename(),
+                headers.getFirst(HttpHeaders.CONTENT_TYPE), currentPart);
+    }
+
+    /**
+     * Lê os cabeçalhos da parte até a linha em branco
+     */
+    private HttpHeaders readHeaders() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        int read = 0;
+
+        while (true) {
+            int end = indexOf(CRLF, pos, limit);
+            while (end < 0) {
+                if (limit - pos > MAX_HEADER_SIZE || !fill()) {
+                    throw new IOException("Cabeçalhos multipart inválidos");
+                }
+                end = indexOf(CRLF, pos, limit);
+            }
+
+            String line = new String(buffer, pos, end - pos, StandardCharsets.UTF_8);
+            read += end - pos + 2;
+            pos = end + 2;
+
+            if (line.isEmpty()) {
+                return headers;
+            }
+            if (read > MAX_HEADER_SIZE) {
+                throw new IOException("Cabeçalhos multipart muito grandes");
+            }
+
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    /**
+     * Procura a sequência no intervalo [from, to) do buffer
+     *
+     * @return Posição encontrada, ou -1
+     */
+    private int indexOf(byte[] sequence, int from, int to) {
+        int last = to - sequence.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < sequence.length; j++) {
+                if (buffer[i + j] != sequence[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Garante ao menos {@code count} bytes disponíveis no buffer
+     *
+     * @return false se o stream terminar antes
+     */
+    private boolean ensure(int count) throws IOException {
+        while (limit - pos < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lê mais dados do stream, compactando o buffer se necessário
+     *
+     * @return false se o stream já terminou ou o buffer está cheio
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buffer.length) {
+            return false;
+        }
+
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        totalRead += read;
+        if (maxRequestSize >= 0 && totalRead > maxRequestSize) {
+            throw new InvalidUploadException(String.format("Upload muito grande. Tamanho máximo: %d MB",
+                    maxRequestSize / (1024 * 1024)));
+        }
+        return true;
+    }
+
+    /**
+     * Conteúdo de uma parte: termina ao encontrar o próximo delimitador
+     */
+    private class PartInputStream extends InputStream {
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            while (true) {
+                // Só examina o necessário para atender a leitura
+                int to = Math.min(limit, pos + len + delimiter.length);
+                int found = indexOf(delimiter, pos, to);
+                if (found == pos) {
+                    // Fim da parte: consome o delimitador
+                    pos += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+
+                // Sem delimitador, só é seguro entregar o que não pode ser início de um
+                int available = found >= 0 ? found - pos : to - pos - (delimiter.length - 1);
+                if (available > 0) {
+                    int count = Math.min(len, available);
+                    System.arraycopy(buffer, pos, b, off, count);
+                    pos += count;
+                    return count;
+                }
+
+                if (!fill()) {
+                    throw new IOException("Corpo multipart truncado");
+                }
+            }
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] discard = new byte[8192];
+            while (read(discard, 0, discard.length) >= 0) {
+                // descarta
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package vbotelho.dev.myConvertPdf.service.upload;
+
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.service.pipeline.ImageInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Arquivo enviado acompanhado dos metadados lidos do cabeçalho durante a validação,
+ * para que as etapas seguintes não precisem ler o cabeçalho novamente
+ */
+public class ProbedImageFile implements MultipartFile {
+
+    private final MultipartFile file;
+    private final ImageInfo imageInfo;
+
+    public ProbedImageFile(MultipartFile file, ImageInfo imageInfo) {
+        this.file = file;
+        this.imageInfo = imageInfo;
+    }
+
+    /**
+     * Associa os metadados ao arquivo, se houver
+     */
+    public static MultipartFile of(MultipartFile file, ImageInfo imageInfo) {
+        return imageInfo != null ? new ProbedImageFile(file, imageInfo) : file;
+    }
+
+    /**
+     * Metadados do arquivo, ou null se ele não foi validado
+     */
+    public static ImageInfo infoOf(MultipartFile file) {
+        return file instanceof ProbedImageFile probed ? probed.imageInfo : null;
+    }
+
+    public ImageInfo getImageInfo() {
+        return imageInfo;
+    }
+
+    @Override
+    public String getName() {
+        return file.getName();
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return file.getOriginalFilename();
+    }
+
+    /**
+     * Tipo detectado pela assinatura do arquivo (o informado pelo cliente não é confiável)
+     */
+    @Override
+    public String getContentType() {
+        return imageInfo.contentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return file.isEmpty();
+    }
+
+    @Override
+    public long getSize() {
+        return file.getSize();
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return file.getBytes();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return file.getInputStream();
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        file.transferTo(dest);
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        file.transferTo(dest);
+    }
+}
@@ -0,0 +1,153 @@
+package vbotelho.dev.myConvertPdf.service.upload;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+import vbotelho.dev.myConvertPdf.service.ValidationService;
+import vbotelho.dev.myConvertPdf.service.exception.InvalidUploadException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Upload multipart lido à medida que chega.
+ * <p>
+ * Os campos de formulário enviados antes do primeiro arquivo ficam disponíveis em
+ * {@link #getFields()}. Os arquivos são entregues um a um pelo iterador, já validados;
+ * cada arquivo só é lido da requisição quando o anterior foi entregue.
+ */
+@Slf4j
+public class StreamingUpload implements Iterator<MultipartFile> {
+
+    // Tamanho máximo de um campo de formulário
+    private static final int MAX_FIELD_SIZE = 1024;
+
+    private final MultipartStreamReader reader;
+    private final ValidationService validationService;
+    private final long maxFileSize;
+    private final Map<String, String> fields = new LinkedHashMap<>();
+
+    // Primeira parte de arquivo, lida junto com os campos
+    private MultipartStreamReader.Part pendingPart;
+    private MultipartFile next;
+    private int fileCount;
+    // Imagens recebidas, contando cada página de TIFF e quadro de GIF
+    private int imageCount;
+    // Admissão de memória de cada arquivo recebido após a definição (ver admitEach)
+    private Consumer<MultipartFile> admission = file -> {
+    };
+
+    StreamingUpload(MultipartStreamReader reader, ValidationService validationService, long maxFileSize)
+            throws IOException {
+        this.reader = reader;
+        this.validationService = validationService;
+        this.maxFileSize = maxFileSize;
+        readFields();
+    }
+
+    /**
+     * Campos de formulário enviados antes do primeiro arquivo
+     */
+    public Map<String, String> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Quantidade de arquivos recebidos até o momento
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNextFile();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao ler upload: " + e.getMessage(), e);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Define a admissão de memória dos próximos arquivos lidos, executada antes de cada um ser entregue.
+     * Arquivos já lidos (por exemplo, o obtido por {@link #peek()}) não passam por ela.
+     */
+    public void admitEach(Consumer<MultipartFile> admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Próximo arquivo, sem avançar o iterador
+     */
+    public MultipartFile peek() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return next;
+    }
+
+    @Override
+    public MultipartFile next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MultipartFile file = next;
+        next = null;
+        return file;
+    }
+
+    private void readFields() throws IOException {
+        MultipartStreamReader.Part part;
+        while ((part = reader.nextPart()) != null) {
+            if (part.isFile()) {
+                pendingPart = part;
+                return;
+            }
+            byte[] value = part.content().readNBytes(MAX_FIELD_SIZE + 1);
+            if (value.length > MAX_FIELD_SIZE) {
+                throw new InvalidUploadException("Campo muito grande: " + part.name());
+            }
+            fields.put(part.name(), new String(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private MultipartFile readNextFile() throws IOException {
+        while (true) {
+            MultipartStreamReader.Part part = pendingPart != null ? pendingPart : reader.nextPart();
+            pendingPart = null;
+            if (part == null) {
+                return null;
+            }
+
+            // Campos após os arquivos e campos de arquivo vazios (sem seleção) são ignorados
+            if (!part.isFile() || part.filename().isEmpty()) {
+                log.debug("Parte ignorada no upload em streaming: {}", part.name());
+                continue;
+            }
+
+            // Lê no máximo o limite de tamanho, sem armazenar arquivos maiores
+            byte[] content = part.content().readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxFileSize + 1));
+            if (content.length > maxFileSize) {
+                throw new InvalidUploadException(
+                        String.format("Arquivo muito grande: %s. Tamanho máximo: %d MB",
+                                part.filename(), maxFileSize / (1024 * 1024)));
+            }
+
+            MultipartFile file = new InMemoryImageFile(part.name(), part.filename(), part.contentType(), content);
+            MultipartFile validated = validationService.validateStreamedFile(file, imageCount);
+            admission.accept(validated);
+            fileCount++;
+            imageCount += ValidationService.imageCount(validated);
+            return validated;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package vbotelho.dev.myConvertPdf.service.upload;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import vbotelho.dev.myConvertPdf.service.ValidationService;
+import vbotelho.dev.myConvertPdf.service.exception.InvalidUploadException;
+
+import java.io.IOException;
+
+/**
+ * Abre uploads multipart para leitura em streaming, sem o processamento
+ * multipart do Spring (que recebe e grava todo o corpo antes do controller)
+ */
+@Service
+@RequiredArgsConstructor
+public class StreamingUploadService {
+
+    private final ValidationService validationService;
+
+    @Value("${spring.servlet.multipart.max-file-size:50MB}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size:500MB}")
+    private DataSize maxRequestSize;
+
+    // Mesmo limite de partes aplicado pelo Tomcat ao processamento multipart padrão
+    @Value("${server.tomcat.max-part-count:200}")
+    private int maxPartCount;
+
+    /**
+     * Inicia a leitura do corpo da requisição, consumindo os campos enviados antes do primeiro arquivo
+     *
+     * @throws InvalidUploadException se a requisição não for multipart/form-data válido
+     */
+    public StreamingUpload open(HttpServletRequest request) {
+        String boundary = null;
+        try {
+            if (request.getContentType() != null) {
+                MediaType contentType = MediaType.parseMediaType(request.getContentType());
+                if (MediaType.MULTIPART_FORM_DATA.includes(contentType)) {
+                    boundary = contentType.getParameter("boundary");
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            throw new InvalidUploadException("Content-Type inválido: " + request.getContentType(), e);
+        }
+
+        if (boundary == null || boundary.isEmpty()) {
+            throw new InvalidUploadException("Requisição deve ser multipart/form-data");
+        }
+        if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary,
+                    maxRequestSize.toBytes(), maxPartCount);
+            return new StreamingUpload(reader, validationService, maxFileSize.toBytes());
+        } catch (IOException e) {
+            throw new InvalidUploadException("Erro ao ler upload: " + e.getMessage(), e);
+        }
+    }
+}